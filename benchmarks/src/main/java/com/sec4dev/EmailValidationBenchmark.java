@@ -0,0 +1,36 @@
+package com.sec4dev;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/** {@link Validation#validateEmail} and {@link Validation#parseEmail} against the previous regex check. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailValidationBenchmark {
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$");
+
+    @Param({"user@tempmail.com", "John.Doe@MailInator.COM", "first.last+tag@sub.example.co.uk"})
+    public String email;
+
+    @Benchmark
+    public void validate() {
+        Validation.validateEmail(email);
+    }
+
+    @Benchmark
+    public EmailAddress parse() {
+        return Validation.parseEmail(email);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return EMAIL_PATTERN.matcher(email.trim()).matches();
+    }
+}
@@ -0,0 +1,84 @@
+package com.sec4dev;
+
+import com.sec4dev.models.RateLimitInfo;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response header and error handling in {@link HttpClient}. Lives in
+ * {@code com.sec4dev} to reach the package-private client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpClientBenchmark {
+
+    private static final byte[] ERROR_BODY = "{\"detail\":\"Rate limit exceeded\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpClient http;
+    private HttpResponse<byte[]> ok;
+    private HttpResponse<byte[]> rateLimited;
+
+    @Setup
+    public void setUp() {
+        http = new HttpClient("http://localhost", "sec4_bench", null, 0, 0, null, null);
+        ok = new StubResponse(200, Map.of(
+                "X-RateLimit-Limit", List.of("1000"),
+                "X-RateLimit-Remaining", List.of("998"),
+                "X-RateLimit-Reset", List.of("42")), new byte[0]);
+        rateLimited = new StubResponse(429, Map.of(
+                "X-RateLimit-Limit", List.of("1000"),
+                "X-RateLimit-Remaining", List.of("0"),
+                "Retry-After", List.of("30")), ERROR_BODY);
+    }
+
+    @Benchmark
+    public RateLimitInfo parseRateLimit() {
+        return http.parseRateLimit(ok);
+    }
+
+    @Benchmark
+    public Sec4DevException exceptionFrom429() {
+        return http.exceptionFrom(429, rateLimited.body(), rateLimited);
+    }
+
+    @Benchmark
+    public Sec4DevException exceptionFrom500() {
+        return http.exceptionFrom(500, ERROR_BODY, null);
+    }
+
+    static final class StubResponse implements HttpResponse<byte[]> {
+        private final int status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        StubResponse(int status, Map<String, List<String>> headers, byte[] body) {
+            this.status = status;
+            this.headers = HttpHeaders.of(headers, (k, v) -> true);
+            this.body = body;
+        }
+
+        @Override public int statusCode() { return status; }
+        @Override public HttpRequest request() { return null; }
+        @Override public Optional<HttpResponse<byte[]>> previousResponse() { return Optional.empty(); }
+        @Override public HttpHeaders headers() { return headers; }
+        @Override public byte[] body() { return body; }
+        @Override public Optional<SSLSession> sslSession() { return Optional.empty(); }
+        @Override public URI uri() { return URI.create("http://localhost"); }
+        @Override public Version version() { return Version.HTTP_1_1; }
+    }
+}
@@ -0,0 +1,80 @@
+package com.sec4dev;
+
+import com.sec4dev.models.IPCheckResult;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code IPService.check} against an in-process stub server.
+ * Request coalescing is disabled so every call makes its own round trip. One
+ * retry absorbs the stub server closing a pooled keep-alive connection, and
+ * TCP_NODELAY on the stub keeps delayed ACKs out of the measurement.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class IpCheckBenchmark {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private Sec4DevClient client;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        serverExecutor = Executors.newFixedThreadPool(64);
+        server.setExecutor(serverExecutor);
+        server.createContext("/api/v1/ip/check", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("X-RateLimit-Limit", "1000000");
+            exchange.getResponseHeaders().set("X-RateLimit-Remaining", "999999");
+            exchange.getResponseHeaders().set("X-RateLimit-Reset", "60");
+            exchange.sendResponseHeaders(200, JsonCodecBenchmark.IP_RESPONSE.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(JsonCodecBenchmark.IP_RESPONSE);
+            }
+        });
+        server.start();
+        client = Sec4DevClient.builder()
+                .apiKey("sec4_bench")
+                .baseUrl("http://localhost:" + server.getAddress().getPort() + "/api/v1")
+                .retries(1)
+                .retryDelay(0)
+                .coalesceRequests(false)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public IPCheckResult check1Thread() {
+        return client.getIp().check("203.0.113.42");
+    }
+
+    @Benchmark
+    @Threads(16)
+    public IPCheckResult check16Threads() {
+        return client.getIp().check("203.0.113.42");
+    }
+
+    @Benchmark
+    @Threads(256)
+    public IPCheckResult check256Threads() {
+        return client.getIp().check("203.0.113.42");
+    }
+}
@@ -0,0 +1,67 @@
+package com.sec4dev;
+
+import com.sec4dev.models.IPCheckResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Longest-prefix lookups against an offline snapshot of 100k IPv4 and IPv6
+ * ranges. Each call parses the address literal and walks the trie.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IpSnapshotBenchmark {
+
+    private static final int RANGES = 100_000;
+    private static final int QUERIES = 1 << 12;
+
+    private IpSnapshot snapshot;
+    private String[] v4;
+    private String[] v6;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(1);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < RANGES; i++) {
+            if (i % 4 == 0) {
+                lines.append("{\"cidr\":\"2001:db8:").append(Integer.toHexString(random.nextInt(1 << 16)))
+                        .append(':').append(Integer.toHexString(random.nextInt(1 << 16))).append("::/")
+                        .append(48 + random.nextInt(17));
+            } else {
+                lines.append("{\"cidr\":\"").append(random.nextInt(224)).append('.').append(random.nextInt(256))
+                        .append('.').append(random.nextInt(256)).append(".0/").append(16 + random.nextInt(9));
+            }
+            lines.append("\",\"classification\":\"hosting\",\"network\":{\"asn\":").append(i).append("}}\n");
+        }
+        snapshot = IpSnapshot.load(new ByteArrayInputStream(lines.toString().getBytes(StandardCharsets.UTF_8)),
+                Instant.now());
+        v4 = new String[QUERIES];
+        v6 = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            v4[i] = random.nextInt(224) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+            v6[i] = "2001:db8:" + Integer.toHexString(random.nextInt(1 << 16)) + ":"
+                    + Integer.toHexString(random.nextInt(1 << 16)) + "::" + Integer.toHexString(random.nextInt(1 << 16));
+        }
+    }
+
+    @Benchmark
+    public IPCheckResult lookupV4() {
+        return snapshot.lookup(v4[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public IPCheckResult lookupV6() {
+        return snapshot.lookup(v6[next++ & (QUERIES - 1)]);
+    }
+}
@@ -0,0 +1,38 @@
+package com.sec4dev;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the literal parser behind {@link Validation#validateIp} with the
+ * previous {@code InetAddress.getByName} check. Hostnames are not benchmarked
+ * on the InetAddress side because they trigger a DNS lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IpValidationBenchmark {
+
+    @Param({"203.0.113.42", "2001:db8::8a2e:370:7334", "::ffff:192.0.2.1", "fe80::1%1"})
+    public String ip;
+
+    @Benchmark
+    public void literalParser() {
+        Validation.validateIp(ip);
+    }
+
+    @Benchmark
+    public String literalParserCanonical() {
+        return Validation.normalizeIp(ip);
+    }
+
+    @Benchmark
+    public InetAddress inetAddress() throws Exception {
+        return InetAddress.getByName(ip.trim());
+    }
+}
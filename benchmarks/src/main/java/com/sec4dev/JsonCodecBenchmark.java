@@ -0,0 +1,63 @@
+package com.sec4dev;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sec4dev.models.EmailCheckResult;
+import com.sec4dev.models.IPCheckResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request serialization and response deserialization. The {@code *Databind}
+ * methods are the previous approach (databind for IP results, an intermediate
+ * Map for email results) kept as a baseline for the streaming decoders in
+ * {@link JsonCodec}. Lives in {@code com.sec4dev} to reach the codec.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonCodecBenchmark {
+
+    public static final byte[] IP_RESPONSE = ("{\"ip\":\"203.0.113.42\",\"classification\":\"hosting\",\"confidence\":0.95,"
+            + "\"signals\":{\"is_hosting\":true,\"is_residential\":false,\"is_mobile\":false,\"is_vpn\":false,"
+            + "\"is_tor\":false,\"is_proxy\":false},"
+            + "\"network\":{\"asn\":16509,\"org\":\"Amazon.com, Inc.\",\"provider\":\"AWS\"},"
+            + "\"geo\":{\"country\":\"US\",\"region\":null}}").getBytes(StandardCharsets.UTF_8);
+    public static final byte[] EMAIL_RESPONSE = "{\"email\":\"user@tempmail.com\",\"domain\":\"tempmail.com\",\"is_disposable\":true}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Benchmark
+    public String serializeIpRequest() throws Exception {
+        return mapper.writeValueAsString(Map.of("ip", "203.0.113.42"));
+    }
+
+    @Benchmark
+    public IPCheckResult decodeIpResult() {
+        return JsonCodec.decodeIp(IP_RESPONSE);
+    }
+
+    @Benchmark
+    public IPCheckResult decodeIpResultDatabind() throws Exception {
+        return mapper.readValue(IP_RESPONSE, IPCheckResult.class);
+    }
+
+    @Benchmark
+    public EmailCheckResult decodeEmailResult() {
+        return JsonCodec.decodeEmail(EMAIL_RESPONSE, "user@tempmail.com");
+    }
+
+    @Benchmark
+    public EmailCheckResult decodeEmailResultDatabind() throws Exception {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> m = mapper.readValue(EMAIL_RESPONSE, Map.class);
+        return new EmailCheckResult((String) m.getOrDefault("email", ""),
+                (String) m.getOrDefault("domain", ""), Boolean.TRUE.equals(m.get("is_disposable")));
+    }
+}
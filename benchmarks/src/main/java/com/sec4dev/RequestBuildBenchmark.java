@@ -0,0 +1,56 @@
+package com.sec4dev;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call request construction: the pre-built {@link Endpoint} template with
+ * a directly encoded body, against the previous Map + ObjectMapper + URI.create
+ * + five headers path. Run with {@code -prof gc} to compare allocation per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBuildBenchmark {
+
+    private static final String BASE_URL = "https://api.sec4.dev/api/v1";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Endpoint endpoint;
+
+    @Param({"203.0.113.42"})
+    public String ip;
+
+    @Setup
+    public void setUp() {
+        endpoint = new HttpClient(BASE_URL, "sec4_bench", null, 0, 0, null, null).endpoint("/ip/check", "ip");
+    }
+
+    @Benchmark
+    public HttpRequest endpointTemplate() {
+        return endpoint.request(ip);
+    }
+
+    @Benchmark
+    public HttpRequest mapAndBuilder() throws Exception {
+        String bodyJson = mapper.writeValueAsString(Map.of("ip", ip));
+        return HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/ip/check"))
+                .header("X-API-Key", "sec4_bench")
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header("User-Agent", "sec4dev-java/1.0.0")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyJson))
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.sec4dev;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vegas-style adaptive limit on requests in flight. From each round trip it
+ * estimates how many requests are queued at the server,
+ * {@code limit * (1 - minRtt / rtt)}: below {@link #ALPHA} the limit grows by
+ * one, above {@link #BETA} it shrinks by one, and overload responses cut it
+ * by the backoff ratio. Slots are taken with a CAS on the in-flight count;
+ * callers that find no slot wait in a queue of futures that releases hand
+ * slots to, so async callers hold no thread while waiting.
+ */
+final class AdaptiveLimiter {
+
+    static final int ALPHA = 3;
+    static final int BETA = 6;
+    // The lowest RTT is re-learned periodically so a lasting shift in base latency is not read as queueing.
+    private static final long BASE_RTT_WINDOW = 1_000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long maxWaitMs;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong minRtt = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong samples = new AtomicLong();
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+    private final LongAdder rejected = new LongAdder();
+
+    AdaptiveLimiter(ConcurrencyLimitConfig config) {
+        this.minLimit = config.getMinLimit();
+        this.maxLimit = config.getMaxLimit();
+        this.backoffRatio = config.getBackoffRatio();
+        this.maxWaitMs = config.getMaxWaitMs();
+        this.limit = new AtomicInteger(config.getInitialLimit());
+    }
+
+    /** Takes a slot if one is free. */
+    boolean tryAcquire() {
+        for (;;) {
+            int n = inFlight.get();
+            if (n >= limit.get()) return false;
+            if (inFlight.compareAndSet(n, n + 1)) return true;
+        }
+    }
+
+    /** Blocks for a slot up to the configured wait; throws {@link ConcurrencyLimitException} otherwise. */
+    void acquire() {
+        if (tryAcquire()) return;
+        CompletableFuture<Void> w = acquireAsync();
+        try {
+            HttpClient.await(w);
+        } catch (Sec4DevException e) {
+            // Interrupted after a slot was handed over: give it back.
+            if (w.isDone() && !w.isCompletedExceptionally()) release();
+            throw e;
+        }
+    }
+
+    /**
+     * Completes when a slot is taken, or fails with {@link ConcurrencyLimitException}
+     * at once (no wait configured) or after the wait. Cancelling gives up the place in line.
+     */
+    CompletableFuture<Void> acquireAsync() {
+        if (tryAcquire()) return CompletableFuture.completedFuture(null);
+        if (maxWaitMs <= 0) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(rejection());
+        }
+        CompletableFuture<Void> w = new CompletableFuture<>();
+        waiters.add(w);
+        // A slot may have been released between the failed CAS and joining the queue.
+        grantWaiters();
+        if (!w.isDone()) {
+            CompletableFuture.delayedExecutor(maxWaitMs, TimeUnit.MILLISECONDS).execute(() -> {
+                if (w.completeExceptionally(rejection())) {
+                    rejected.increment();
+                    waiters.remove(w);
+                }
+            });
+        }
+        return w;
+    }
+
+    /** Returns a slot without a latency sample, e.g. when the request was cancelled. */
+    void release() {
+        inFlight.decrementAndGet();
+        grantWaiters();
+    }
+
+    /** Records a round trip and returns its slot. */
+    void onComplete(long rttNanos, boolean overloaded) {
+        update(Math.max(1, rttNanos), overloaded);
+        release();
+    }
+
+    private void update(long rtt, boolean overloaded) {
+        if (overloaded) {
+            limit.updateAndGet(l -> Math.max(minLimit, Math.min(l - 1, (int) (l * backoffRatio))));
+            return;
+        }
+        if (samples.incrementAndGet() % BASE_RTT_WINDOW == 0) minRtt.set(rtt);
+        else minRtt.accumulateAndGet(rtt, Math::min);
+        int l = limit.get();
+        double queued = l * (1.0 - (double) minRtt.get() / rtt);
+        if (queued < ALPHA) {
+            // Only grow a limit that is being used; an idle client would otherwise creep to the max.
+            if (l < maxLimit && inFlight.get() * 2 >= l) limit.compareAndSet(l, l + 1);
+        } else if (queued > BETA && l > minLimit) {
+            limit.compareAndSet(l, l - 1);
+        }
+    }
+
+    /** Hands free slots to queued callers; skips callers that timed out or cancelled. */
+    private void grantWaiters() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            CompletableFuture<Void> w = waiters.poll();
+            if (w != null && w.complete(null)) continue;
+            inFlight.decrementAndGet();
+            if (w == null) return;
+        }
+    }
+
+    private ConcurrencyLimitException rejection() {
+        int l = limit.get();
+        return new ConcurrencyLimitException("Concurrency limit of " + l + " requests in flight reached", l);
+    }
+
+    int limit() {
+        return limit.get();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    long rejectedCount() {
+        return rejected.sum();
+    }
+}
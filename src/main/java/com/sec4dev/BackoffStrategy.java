@@ -0,0 +1,13 @@
+package com.sec4dev;
+
+/** How the delay between retries grows. */
+public enum BackoffStrategy {
+    /** {@code retryDelay * 2^attempt} plus up to 100ms of jitter. */
+    EXPONENTIAL,
+    /**
+     * A random delay between {@code retryDelay} and three times the previous
+     * delay, capped at the policy's maximum. Spreads out callers that failed
+     * together instead of retrying them in lockstep.
+     */
+    DECORRELATED_JITTER
+}
@@ -0,0 +1,47 @@
+package com.sec4dev;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Results of a bulk check, keyed by input. Inputs that failed are reported in
+ * {@link #getErrors()} instead of failing the whole batch.
+ */
+public final class BatchResult<T> {
+
+    private final Map<String, T> results;
+    private final Map<String, Sec4DevException> errors;
+
+    BatchResult(Map<String, T> results, Map<String, Sec4DevException> errors) {
+        this.results = Collections.unmodifiableMap(results);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /** Successful results in input order. */
+    public Map<String, T> getResults() {
+        return results;
+    }
+
+    /** Failed inputs in input order. */
+    public Map<String, Sec4DevException> getErrors() {
+        return errors;
+    }
+
+    /** Result for an input, or null if it failed or was not part of the batch. */
+    public T get(String input) {
+        return results.get(input);
+    }
+
+    /** Error for an input, or null if it succeeded or was not part of the batch. */
+    public Sec4DevException getError(String input) {
+        return errors.get(input);
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public int size() {
+        return results.size() + errors.size();
+    }
+}
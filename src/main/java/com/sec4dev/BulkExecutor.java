@@ -0,0 +1,110 @@
+package com.sec4dev;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Runs a bulk check as a bounded fan-out of async calls. At most
+ * {@code concurrency} calls are in flight; each completion starts the next
+ * input, so no thread waits on a response.
+ */
+final class BulkExecutor {
+
+    private BulkExecutor() {}
+
+    static <T> CompletableFuture<BatchResult<T>> run(Collection<String> inputs, int concurrency,
+                                                     Function<String, CompletableFuture<T>> call) {
+        String[] keys = new LinkedHashSet<>(inputs).toArray(new String[0]);
+        Run<T> run = new Run<>(keys, call);
+        int lanes = Math.max(1, Math.min(concurrency, keys.length));
+        run.activeLanes.set(lanes);
+        for (int i = 0; i < lanes; i++) run.lane();
+        return run.done;
+    }
+
+    static <T> BatchResult<T> await(CompletableFuture<BatchResult<T>> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new Sec4DevException("Interrupted", 0, null);
+        } catch (ExecutionException e) {
+            throw toSec4Dev(e.getCause());
+        }
+    }
+
+    static Sec4DevException toSec4Dev(Throwable t) {
+        Throwable cause = HttpClient.unwrap(t);
+        if (cause instanceof Sec4DevException) return (Sec4DevException) cause;
+        return new Sec4DevException(String.valueOf(cause.getMessage()), 0, null);
+    }
+
+    private static final class Run<T> {
+        private final String[] keys;
+        private final Function<String, CompletableFuture<T>> call;
+        private final AtomicReferenceArray<Object> outcomes;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger activeLanes = new AtomicInteger();
+        private final CompletableFuture<BatchResult<T>> done = new CompletableFuture<>();
+
+        Run(String[] keys, Function<String, CompletableFuture<T>> call) {
+            this.keys = keys;
+            this.call = call;
+            this.outcomes = new AtomicReferenceArray<>(keys.length);
+        }
+
+        /** Starts inputs until one is pending; results already available are recorded inline. */
+        void lane() {
+            while (!done.isDone()) {
+                int i = next.getAndIncrement();
+                if (i >= keys.length) {
+                    if (activeLanes.decrementAndGet() == 0) finish();
+                    return;
+                }
+                CompletableFuture<T> f;
+                try {
+                    f = call.apply(keys[i]);
+                } catch (RuntimeException e) {
+                    f = CompletableFuture.failedFuture(e);
+                }
+                if (f.isDone()) {
+                    record(i, f);
+                    continue;
+                }
+                f.whenComplete((v, err) -> {
+                    outcomes.set(i, err != null ? toSec4Dev(err) : v);
+                    lane();
+                });
+                return;
+            }
+        }
+
+        private void record(int i, CompletableFuture<T> f) {
+            try {
+                outcomes.set(i, f.join());
+            } catch (RuntimeException e) {
+                outcomes.set(i, toSec4Dev(e));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void finish() {
+            Map<String, T> results = new LinkedHashMap<>();
+            Map<String, Sec4DevException> errors = new LinkedHashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                Object o = outcomes.get(i);
+                if (o instanceof Sec4DevException) errors.put(keys[i], (Sec4DevException) o);
+                else results.put(keys[i], (T) o);
+            }
+            done.complete(new BatchResult<>(results, errors));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.sec4dev;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for the optional in-process result cache.
+ */
+public final class CacheConfig {
+
+    private static final long DEFAULT_TTL_MS = 300_000;
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final double DEFAULT_REFRESH_JITTER = 0.1;
+
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final int maxEntries;
+    private final long refreshAfterMs;
+    private final double refreshJitter;
+
+    private CacheConfig(Builder b) {
+        if (b.ttlMs <= 0) {
+            throw new IllegalArgumentException("Cache TTL must be positive");
+        }
+        if (b.maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache max entries must be positive");
+        }
+        if (b.refreshAfterMs < 0 || (b.refreshAfterMs > 0 && b.refreshAfterMs >= b.ttlMs)) {
+            throw new IllegalArgumentException("Cache refresh time must be positive and less than the TTL");
+        }
+        if (b.refreshJitter < 0 || b.refreshJitter >= 1) {
+            throw new IllegalArgumentException("Cache refresh jitter must be in [0, 1)");
+        }
+        this.ttlMs = b.ttlMs;
+        this.negativeTtlMs = b.negativeTtlMs > 0 ? b.negativeTtlMs : b.ttlMs;
+        this.maxEntries = b.maxEntries;
+        this.refreshAfterMs = b.refreshAfterMs;
+        this.refreshJitter = b.refreshJitter;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    /** TTL for negative answers (e.g. a domain that is not disposable). Defaults to {@link #getTtlMs()}. */
+    public long getNegativeTtlMs() {
+        return negativeTtlMs;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /** Age after which a hit triggers a background refresh; 0 when refresh-ahead is off. */
+    public long getRefreshAfterMs() {
+        return refreshAfterMs;
+    }
+
+    /** Fraction by which each entry's refresh time is randomly brought forward. */
+    public double getRefreshJitter() {
+        return refreshJitter;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private long ttlMs = DEFAULT_TTL_MS;
+        private long negativeTtlMs;
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private long refreshAfterMs;
+        private double refreshJitter = DEFAULT_REFRESH_JITTER;
+
+        private Builder() {}
+
+        public Builder ttl(long duration, TimeUnit unit) {
+            this.ttlMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder negativeTtl(long duration, TimeUnit unit) {
+            this.negativeTtlMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder maxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Refresh-ahead: a hit on an entry older than this is answered from the cache at once
+         * while a single background request refreshes it. If that request fails the entry keeps
+         * being served until the (hard) TTL. Must be less than the TTL; off by default.
+         */
+        public Builder refreshAfter(long duration, TimeUnit unit) {
+            this.refreshAfterMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Brings each entry's refresh time forward by a random fraction up to this value, so
+         * entries cached together are not all refreshed at once (default: 0.1).
+         */
+        public Builder refreshJitter(double jitter) {
+            this.refreshJitter = jitter;
+            return this;
+        }
+
+        public CacheConfig build() {
+            return new CacheConfig(this);
+        }
+    }
+}
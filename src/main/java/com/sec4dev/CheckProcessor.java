@@ -0,0 +1,211 @@
+package com.sec4dev;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Reactive Streams stage that maps inputs to check results with async calls.
+ * Upstream demand is requested only while fewer than {@code concurrency}
+ * inputs are in flight or buffered, never beyond the subscriber's demand,
+ * and, when rate-limit pacing is on, one input at a time as the pacer frees
+ * send slots. No thread waits on a response. Results are emitted in
+ * completion order; the first failed check cancels upstream and is
+ * signalled with {@code onError}.
+ *
+ * <p>All signals to the subscriber and all upstream requests go through a
+ * single drain loop, so they are serialized as the specification requires.
+ */
+final class CheckProcessor<R> implements Flow.Processor<String, R>, Flow.Subscription {
+
+    private final Function<String, CompletableFuture<R>> check;
+    private final HttpClient http;
+    private final int concurrency;
+    private final Queue<R> results = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger requestedUpstream = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicBoolean paceScheduled = new AtomicBoolean();
+    private final AtomicReference<Flow.Subscriber<? super R>> downstream = new AtomicReference<>();
+    private volatile boolean subscribed;
+    private volatile Flow.Subscription upstream;
+    private volatile boolean upstreamDone;
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+    private boolean terminated;
+
+    CheckProcessor(Function<String, CompletableFuture<R>> check, HttpClient http, int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        this.check = check;
+        this.http = http;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {}
+
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("This processor supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(this);
+        subscribed = true;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(String input) {
+        // Count the input as in flight before it stops counting as requested, so a concurrent
+        // requestMore() never sees one busy slot too few.
+        inFlight.incrementAndGet();
+        requestedUpstream.decrementAndGet();
+        CompletableFuture<R> f;
+        try {
+            f = check.apply(input);
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+        f.whenComplete((r, e) -> {
+            if (e != null) fail(HttpClient.unwrap(e));
+            else results.add(r);
+            inFlight.decrementAndGet();
+            drain();
+        });
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("Requested " + n + " items; demand must be positive"));
+            return;
+        }
+        long cur;
+        do {
+            cur = demand.get();
+            if (cur == Long.MAX_VALUE) break;
+        } while (!demand.compareAndSet(cur, cur + n < 0 ? Long.MAX_VALUE : cur + n));
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        Flow.Subscription s = upstream;
+        if (s != null) s.cancel();
+        drain();
+    }
+
+    private void fail(Throwable t) {
+        if (error == null) error = t;
+        upstreamDone = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) return;
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super R> d = downstream.get();
+            if (subscribed && !terminated) {
+                if (cancelled) {
+                    terminated = true;
+                    results.clear();
+                } else if (error != null) {
+                    terminated = true;
+                    results.clear();
+                    Flow.Subscription s = upstream;
+                    if (s != null) s.cancel();
+                    d.onError(error);
+                } else {
+                    emit(d);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit(Flow.Subscriber<? super R> d) {
+        long wanted = demand.get();
+        long sent = 0;
+        while (sent != wanted) {
+            R r = results.poll();
+            if (r == null) break;
+            d.onNext(r);
+            sent++;
+        }
+        if (sent != 0 && wanted != Long.MAX_VALUE) demand.addAndGet(-sent);
+        if (upstreamDone && inFlight.get() == 0 && results.isEmpty()) {
+            terminated = true;
+            d.onComplete();
+            return;
+        }
+        requestMore();
+    }
+
+    /** Asks upstream for as many inputs as capacity, demand and the pacer allow. */
+    private void requestMore() {
+        Flow.Subscription s = upstream;
+        if (s == null || upstreamDone) return;
+        long busy = (long) inFlight.get() + results.size() + requestedUpstream.get();
+        long n = Math.min(concurrency - busy, demand.get() - busy);
+        if (n <= 0) return;
+        boolean paced = http.paced();
+        if (paced) {
+            long wait = http.paceDelayMs();
+            if (wait > 0) {
+                schedulePace(wait);
+                return;
+            }
+            n = 1;
+        }
+        requestedUpstream.addAndGet((int) n);
+        s.request(n);
+        // Pull the next input when the pacer frees the next send slot, not when a response arrives.
+        if (paced) schedulePace(Math.max(1, http.paceDelayMs()));
+    }
+
+    private void schedulePace(long delayMs) {
+        if (!paceScheduled.compareAndSet(false, true)) return;
+        CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS).execute(() -> {
+            paceScheduled.set(false);
+            drain();
+        });
+    }
+}
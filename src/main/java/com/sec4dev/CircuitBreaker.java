@@ -0,0 +1,150 @@
+package com.sec4dev;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count-based circuit breaker for one endpoint. Every HTTP attempt takes a
+ * permit from {@link #acquire()} and reports its outcome with {@link #record};
+ * outcomes from a permit issued before the last state change are ignored, so a
+ * slow call started while closed cannot close a breaker that has since opened.
+ */
+final class CircuitBreaker {
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final CircuitBreakerListener listener;
+    private final long slowNanos;
+    private final LongAdder rejected = new LongAdder();
+
+    // Guarded by this.
+    private final byte[] window;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+    private CircuitState state = CircuitState.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    CircuitBreaker(String name, CircuitBreakerConfig config, CircuitBreakerListener listener) {
+        this.name = name;
+        this.config = config;
+        this.listener = listener;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationMs());
+        this.window = new byte[config.getWindowSize()];
+    }
+
+    /** Returns a permit for one attempt, or throws if the breaker is open. */
+    long acquire() {
+        CircuitState from;
+        CircuitState to;
+        long permit;
+        synchronized (this) {
+            from = state;
+            if (state == CircuitState.OPEN) {
+                long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAt);
+                if (waited < config.getOpenDurationMs()) {
+                    rejected.increment();
+                    throw new CircuitOpenException("Circuit open for " + name,
+                            config.getOpenDurationMs() - waited);
+                }
+                transition(CircuitState.HALF_OPEN);
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                if (probesIssued >= config.getHalfOpenProbes()) {
+                    rejected.increment();
+                    throw new CircuitOpenException("Circuit half-open for " + name + ", probes in flight", 0);
+                }
+                probesIssued++;
+            }
+            permit = generation;
+            to = state;
+        }
+        notify(from, to);
+        return permit;
+    }
+
+    /** Reports the outcome of an attempt. {@code failed} means a network error or 5xx. */
+    void record(long permit, boolean failed, long elapsedNanos) {
+        CircuitState from;
+        CircuitState to;
+        synchronized (this) {
+            if (permit != generation) return;
+            from = state;
+            boolean slow = elapsedNanos >= slowNanos;
+            if (state == CircuitState.HALF_OPEN) {
+                if (failed || slow) {
+                    open();
+                } else if (++probesSucceeded >= config.getHalfOpenProbes()) {
+                    transition(CircuitState.CLOSED);
+                }
+            } else {
+                add(failed, slow);
+                if (calls >= config.getMinimumCalls()
+                        && (failures >= config.getFailureRateThreshold() * calls
+                        || slowCalls >= config.getSlowCallRateThreshold() * calls)) {
+                    open();
+                }
+            }
+            to = state;
+        }
+        notify(from, to);
+    }
+
+    /** Returns a permit whose attempt was abandoned without an outcome, e.g. a cancelled hedge. */
+    synchronized void release(long permit) {
+        if (permit == generation && state == CircuitState.HALF_OPEN) probesIssued--;
+    }
+
+    CircuitState state() {
+        synchronized (this) {
+            return state;
+        }
+    }
+
+    long rejectedCount() {
+        return rejected.sum();
+    }
+
+    private void add(boolean failed, boolean slow) {
+        if (calls == window.length) {
+            byte old = window[next];
+            if ((old & FAILED) != 0) failures--;
+            if ((old & SLOW) != 0) slowCalls--;
+        } else {
+            calls++;
+        }
+        window[next] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        if (failed) failures++;
+        if (slow) slowCalls++;
+        next = next + 1 == window.length ? 0 : next + 1;
+    }
+
+    private void open() {
+        transition(CircuitState.OPEN);
+        openedAt = System.nanoTime();
+    }
+
+    private void transition(CircuitState to) {
+        state = to;
+        generation++;
+        probesIssued = 0;
+        probesSucceeded = 0;
+        if (to == CircuitState.CLOSED) {
+            next = 0;
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+
+    private void notify(CircuitState from, CircuitState to) {
+        if (from != to && listener != null) listener.onStateChange(name, from, to);
+    }
+}
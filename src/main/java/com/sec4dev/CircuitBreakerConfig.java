@@ -0,0 +1,128 @@
+package com.sec4dev;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for the optional per-endpoint circuit breaker. The breaker looks at
+ * the last {@code windowSize} requests and opens when the share of failures
+ * (network errors and 5xx) or of slow calls reaches its threshold.
+ */
+public final class CircuitBreakerConfig {
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallDurationMs;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+
+    private CircuitBreakerConfig(Builder b) {
+        if (b.windowSize <= 0 || b.minimumCalls <= 0 || b.minimumCalls > b.windowSize) {
+            throw new IllegalArgumentException("Circuit breaker window must satisfy 0 < minimumCalls <= windowSize");
+        }
+        if (b.failureRateThreshold <= 0 || b.failureRateThreshold > 1
+                || b.slowCallRateThreshold <= 0 || b.slowCallRateThreshold > 1) {
+            throw new IllegalArgumentException("Circuit breaker thresholds must be between 0 and 1");
+        }
+        if (b.slowCallDurationMs <= 0 || b.openDurationMs <= 0) {
+            throw new IllegalArgumentException("Circuit breaker durations must be positive");
+        }
+        if (b.halfOpenProbes <= 0) {
+            throw new IllegalArgumentException("Circuit breaker probes must be positive");
+        }
+        this.windowSize = b.windowSize;
+        this.minimumCalls = b.minimumCalls;
+        this.failureRateThreshold = b.failureRateThreshold;
+        this.slowCallRateThreshold = b.slowCallRateThreshold;
+        this.slowCallDurationMs = b.slowCallDurationMs;
+        this.openDurationMs = b.openDurationMs;
+        this.halfOpenProbes = b.halfOpenProbes;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /** Calls needed in the window before the breaker may open. */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public long getSlowCallDurationMs() {
+        return slowCallDurationMs;
+    }
+
+    /** How long the breaker stays open before letting probes through. */
+    public long getOpenDurationMs() {
+        return openDurationMs;
+    }
+
+    /** Probe requests allowed while half-open; all must succeed to close. */
+    public int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 1.0;
+        private long slowCallDurationMs = 5_000;
+        private long openDurationMs = 30_000;
+        private int halfOpenProbes = 3;
+
+        private Builder() {}
+
+        public Builder windowSize(int calls) {
+            this.windowSize = calls;
+            return this;
+        }
+
+        public Builder minimumCalls(int calls) {
+            this.minimumCalls = calls;
+            return this;
+        }
+
+        public Builder failureRateThreshold(double rate) {
+            this.failureRateThreshold = rate;
+            return this;
+        }
+
+        public Builder slowCallRateThreshold(double rate) {
+            this.slowCallRateThreshold = rate;
+            return this;
+        }
+
+        public Builder slowCallDuration(long duration, TimeUnit unit) {
+            this.slowCallDurationMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder openDuration(long duration, TimeUnit unit) {
+            this.openDurationMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder halfOpenProbes(int probes) {
+            this.halfOpenProbes = probes;
+            return this;
+        }
+
+        public CircuitBreakerConfig build() {
+            return new CircuitBreakerConfig(this);
+        }
+    }
+}
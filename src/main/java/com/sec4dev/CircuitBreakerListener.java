@@ -0,0 +1,7 @@
+package com.sec4dev;
+
+/** Notified when an endpoint's circuit breaker changes state. */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+    void onStateChange(String endpoint, CircuitState from, CircuitState to);
+}
@@ -0,0 +1,17 @@
+package com.sec4dev;
+
+/** Client-side: the circuit breaker for this endpoint is open and the request was not sent. */
+public class CircuitOpenException extends Sec4DevException {
+
+    private final long retryAfterMs;
+
+    public CircuitOpenException(String message, long retryAfterMs) {
+        super(message, 0, null);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /** Time until the breaker lets a probe request through. */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
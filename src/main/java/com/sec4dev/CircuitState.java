@@ -0,0 +1,11 @@
+package com.sec4dev;
+
+/** State of a per-endpoint circuit breaker. */
+public enum CircuitState {
+    /** Requests flow normally; failures and slow calls are counted. */
+    CLOSED,
+    /** Requests fail immediately with {@link CircuitOpenException}. */
+    OPEN,
+    /** A limited number of probe requests are let through to test recovery. */
+    HALF_OPEN
+}
@@ -0,0 +1,96 @@
+package com.sec4dev;
+
+import com.sec4dev.models.IPCheckResult;
+import com.sec4dev.models.IPClassification;
+import com.sec4dev.models.IPGeo;
+import com.sec4dev.models.IPNetwork;
+import com.sec4dev.models.IPSignals;
+
+/**
+ * An {@link IPCheckResult} as one small object instead of five objects and
+ * their strings, for large caches and snapshots: signals packed into
+ * a byte, the classification as an enum ordinal, confidence in steps of
+ * 0.0001, and network and geo strings as {@link StringDictionary} ids.
+ * Results that cannot be represented exactly (an unknown classification,
+ * finer confidence, a full dictionary) are kept as they are, so the
+ * conversion is always lossless.
+ */
+final class CompactIpResult {
+
+    private static final double CONFIDENCE_SCALE = 10_000;
+    private static final IPClassification[] CLASSIFICATIONS = IPClassification.values();
+    private static final int HAS_ASN = 1 << 6;
+    private static final char[] NONE = new char[4];
+
+    private final String ip;
+    private final IPCheckResult full;
+    private final byte flags;
+    private final byte classification;
+    private final short confidence;
+    private final int asn;
+    private final char org;
+    private final char provider;
+    private final char country;
+    private final char region;
+
+    private CompactIpResult(IPCheckResult full) {
+        this(null, full, 0, 0, 0, 0, NONE);
+    }
+
+    private CompactIpResult(String ip, IPCheckResult full, int flags, int classification, int confidence,
+                            int asn, char[] strings) {
+        this.ip = ip;
+        this.full = full;
+        this.flags = (byte) flags;
+        this.classification = (byte) classification;
+        this.confidence = (short) confidence;
+        this.asn = asn;
+        this.org = strings[0];
+        this.provider = strings[1];
+        this.country = strings[2];
+        this.region = strings[3];
+    }
+
+    /** Packs {@code r}, interning its strings in {@code dict}. */
+    static CompactIpResult of(IPCheckResult r, StringDictionary dict) {
+        IPClassification c = IPClassification.fromValue(r.getClassification());
+        if (!c.getValue().equals(r.getClassification())) return new CompactIpResult(r);
+        long q = Math.round(r.getConfidence() * CONFIDENCE_SCALE);
+        if (q < 0 || q > Short.MAX_VALUE || Double.compare(q / CONFIDENCE_SCALE, r.getConfidence()) != 0) return new CompactIpResult(r);
+        IPSignals s = r.getSignals();
+        Integer asn = r.getNetwork().getAsn();
+        int flags = (s.isHosting() ? 1 : 0) | (s.isResidential() ? 2 : 0) | (s.isMobile() ? 4 : 0)
+                | (s.isVpn() ? 8 : 0) | (s.isTor() ? 16 : 0) | (s.isProxy() ? 32 : 0)
+                | (asn != null ? HAS_ASN : 0);
+        char[] ids = new char[4];
+        String[] strings = {r.getNetwork().getOrg(), r.getNetwork().getProvider(),
+                r.getGeo().getCountry(), r.getGeo().getRegion()};
+        for (int i = 0; i < ids.length; i++) {
+            int id = dict.intern(strings[i]);
+            if (id == StringDictionary.FULL) return new CompactIpResult(r);
+            ids[i] = (char) id;
+        }
+        return new CompactIpResult(r.getIp(), null, flags, c.ordinal(), (int) q, asn != null ? asn : 0, ids);
+    }
+
+    /** Rebuilds the original result; {@code dict} must be the one it was packed with. */
+    IPCheckResult toResult(StringDictionary dict) {
+        return full != null ? full : build(ip, dict);
+    }
+
+    /** Like {@link #toResult(StringDictionary)} with the {@code ip} field replaced. */
+    IPCheckResult toResult(String ip, StringDictionary dict) {
+        if (full == null) return build(ip, dict);
+        return new IPCheckResult(ip, full.getClassification(), full.getConfidence(),
+                full.getSignals(), full.getNetwork(), full.getGeo());
+    }
+
+    private IPCheckResult build(String ip, StringDictionary dict) {
+        IPSignals signals = new IPSignals((flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0,
+                (flags & 8) != 0, (flags & 16) != 0, (flags & 32) != 0);
+        IPNetwork network = new IPNetwork((flags & HAS_ASN) != 0 ? asn : null, dict.get(org), dict.get(provider));
+        IPGeo geo = new IPGeo(dict.get(country), dict.get(region));
+        return new IPCheckResult(ip, CLASSIFICATIONS[classification].getValue(), confidence / CONFIDENCE_SCALE,
+                signals, network, geo);
+    }
+}
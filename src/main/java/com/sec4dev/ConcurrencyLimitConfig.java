@@ -0,0 +1,105 @@
+package com.sec4dev;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for the adaptive limit on requests in flight. The limit grows by
+ * one while round-trip times stay close to the lowest recently seen, shrinks
+ * by one once they show requests queueing at the server, and drops by the
+ * backoff ratio on a 429, a 5xx or a network error. Requests over the limit
+ * wait up to {@code maxWait} for a slot, or fail at once with
+ * {@link ConcurrencyLimitException} when it is zero.
+ */
+public final class ConcurrencyLimitConfig {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long maxWaitMs;
+
+    private ConcurrencyLimitConfig(Builder b) {
+        if (b.minLimit < 1 || b.maxLimit < b.minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= max");
+        }
+        if (b.initialLimit < b.minLimit || b.initialLimit > b.maxLimit) {
+            throw new IllegalArgumentException("Initial concurrency limit must be between min and max");
+        }
+        if (b.backoffRatio <= 0 || b.backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        if (b.maxWaitMs < 0) {
+            throw new IllegalArgumentException("Max wait must not be negative");
+        }
+        this.initialLimit = b.initialLimit;
+        this.minLimit = b.minLimit;
+        this.maxLimit = b.maxLimit;
+        this.backoffRatio = b.backoffRatio;
+        this.maxWaitMs = b.maxWaitMs;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /** Factor applied to the limit on a 429, 5xx or network error, e.g. 0.9. */
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /** How long a request over the limit waits for a slot; 0 rejects it at once. */
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private long maxWaitMs = 10_000;
+
+        private Builder() {}
+
+        public Builder initialLimit(int limit) {
+            this.initialLimit = limit;
+            return this;
+        }
+
+        public Builder minLimit(int limit) {
+            this.minLimit = limit;
+            return this;
+        }
+
+        public Builder maxLimit(int limit) {
+            this.maxLimit = limit;
+            return this;
+        }
+
+        public Builder backoffRatio(double ratio) {
+            this.backoffRatio = ratio;
+            return this;
+        }
+
+        public Builder maxWait(long duration, TimeUnit unit) {
+            this.maxWaitMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public ConcurrencyLimitConfig build() {
+            return new ConcurrencyLimitConfig(this);
+        }
+    }
+}
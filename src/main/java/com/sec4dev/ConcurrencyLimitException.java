@@ -0,0 +1,17 @@
+package com.sec4dev;
+
+/** Client-side: the adaptive concurrency limit was reached and the request was not sent. */
+public class ConcurrencyLimitException extends Sec4DevException {
+
+    private final int limit;
+
+    public ConcurrencyLimitException(String message, int limit) {
+        super(message, 0, null);
+        this.limit = limit;
+    }
+
+    /** The limit in effect when the request was turned away. */
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,89 @@
+package com.sec4dev;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for the optional on-disk cache tier: a memory-mapped file that
+ * keeps results across restarts and can be shared by processes on the same
+ * host. An existing file keeps the capacity it was created with.
+ */
+public final class DiskCacheConfig {
+
+    private static final long DEFAULT_TTL_MS = 3_600_000;
+    private static final int DEFAULT_MAX_ENTRIES = 65_536;
+    static final int MAX_ENTRIES_LIMIT = 1 << 21;
+
+    private final Path path;
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final int maxEntries;
+
+    private DiskCacheConfig(Builder b) {
+        if (b.path == null) {
+            throw new IllegalArgumentException("Disk cache path is required");
+        }
+        if (b.ttlMs <= 0) {
+            throw new IllegalArgumentException("Cache TTL must be positive");
+        }
+        if (b.maxEntries <= 0 || b.maxEntries > MAX_ENTRIES_LIMIT) {
+            throw new IllegalArgumentException("Disk cache max entries must be between 1 and " + MAX_ENTRIES_LIMIT);
+        }
+        this.path = b.path;
+        this.ttlMs = b.ttlMs;
+        this.negativeTtlMs = b.negativeTtlMs > 0 ? b.negativeTtlMs : b.ttlMs;
+        this.maxEntries = b.maxEntries;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    /** TTL for negative answers (e.g. a domain that is not disposable). Defaults to {@link #getTtlMs()}. */
+    public long getNegativeTtlMs() {
+        return negativeTtlMs;
+    }
+
+    /** Slots in a new file; each takes 512 bytes on disk. */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public static Builder builder(Path path) {
+        return new Builder(path);
+    }
+
+    public static final class Builder {
+        private final Path path;
+        private long ttlMs = DEFAULT_TTL_MS;
+        private long negativeTtlMs;
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+        private Builder(Path path) {
+            this.path = path;
+        }
+
+        public Builder ttl(long duration, TimeUnit unit) {
+            this.ttlMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder negativeTtl(long duration, TimeUnit unit) {
+            this.negativeTtlMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder maxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        public DiskCacheConfig build() {
+            return new DiskCacheConfig(this);
+        }
+    }
+}
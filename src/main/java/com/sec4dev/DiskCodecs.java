@@ -0,0 +1,82 @@
+package com.sec4dev;
+
+import com.sec4dev.models.EmailCheckResult;
+import com.sec4dev.models.IPCheckResult;
+import com.sec4dev.models.IPGeo;
+import com.sec4dev.models.IPNetwork;
+import com.sec4dev.models.IPSignals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** Binary slot formats for {@link MappedCache}. The key is stored separately and not repeated. */
+final class DiskCodecs {
+
+    private DiskCodecs() {
+    }
+
+    static final MappedCache.Codec<IPCheckResult> IP = new MappedCache.Codec<>() {
+        @Override
+        public void encode(IPCheckResult r, ByteBuffer out) {
+            IPSignals s = r.getSignals();
+            putString(out, r.getClassification());
+            out.putDouble(r.getConfidence());
+            out.put((byte) ((s.isHosting() ? 1 : 0) | (s.isResidential() ? 2 : 0) | (s.isMobile() ? 4 : 0)
+                    | (s.isVpn() ? 8 : 0) | (s.isTor() ? 16 : 0) | (s.isProxy() ? 32 : 0)));
+            Integer asn = r.getNetwork().getAsn();
+            out.put((byte) (asn != null ? 1 : 0));
+            out.putInt(asn != null ? asn : 0);
+            putString(out, r.getNetwork().getOrg());
+            putString(out, r.getNetwork().getProvider());
+            putString(out, r.getGeo().getCountry());
+            putString(out, r.getGeo().getRegion());
+        }
+
+        @Override
+        public IPCheckResult decode(String ip, ByteBuffer in) {
+            String classification = getString(in);
+            double confidence = in.getDouble();
+            int bits = in.get();
+            IPSignals signals = new IPSignals((bits & 1) != 0, (bits & 2) != 0, (bits & 4) != 0,
+                    (bits & 8) != 0, (bits & 16) != 0, (bits & 32) != 0);
+            boolean hasAsn = in.get() != 0;
+            int asn = in.getInt();
+            IPNetwork network = new IPNetwork(hasAsn ? asn : null, getString(in), getString(in));
+            IPGeo geo = new IPGeo(getString(in), getString(in));
+            return new IPCheckResult(ip, classification, confidence, signals, network, geo);
+        }
+    };
+
+    /** Decoded results carry the normalized key as the address; callers substitute the one requested. */
+    static final MappedCache.Codec<EmailCheckResult> EMAIL = new MappedCache.Codec<>() {
+        @Override
+        public void encode(EmailCheckResult r, ByteBuffer out) {
+            putString(out, r.getDomain());
+            out.put((byte) (r.isDisposable() ? 1 : 0));
+        }
+
+        @Override
+        public EmailCheckResult decode(String email, ByteBuffer in) {
+            String domain = getString(in);
+            return new EmailCheckResult(email, domain, in.get() != 0);
+        }
+    };
+
+    private static void putString(ByteBuffer out, String s) {
+        if (s == null) {
+            out.putShort((short) -1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) b.length);
+        out.put(b);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int len = in.getShort();
+        if (len < 0) return null;
+        String s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+        in.position(in.position() + len);
+        return s;
+    }
+}
@@ -0,0 +1,130 @@
+package com.sec4dev;
+
+import java.net.IDN;
+import java.util.Locale;
+
+/**
+ * A validated email address split into local part and normalized domain.
+ * The domain is lowercased and internationalized domains are converted to
+ * their ASCII (punycode) form, so it can be used directly as a cache key.
+ */
+public final class EmailAddress {
+
+    private final String address;
+    private final String localPart;
+    private final String domain;
+
+    private EmailAddress(String address, String localPart, String domain) {
+        this.address = address;
+        this.localPart = localPart;
+        this.domain = domain;
+    }
+
+    /** The address as given, without surrounding whitespace. */
+    public String getAddress() {
+        return address;
+    }
+
+    /** The part before the {@code @}, unchanged (local parts are case-sensitive). */
+    public String getLocalPart() {
+        return localPart;
+    }
+
+    /** The lowercase ASCII domain. */
+    public String getDomain() {
+        return domain;
+    }
+
+    /** {@code localPart@domain}; equal for addresses that differ only in domain case or encoding. */
+    public String getNormalized() {
+        return localPart + '@' + domain;
+    }
+
+    @Override
+    public String toString() {
+        return address;
+    }
+
+    /**
+     * Parses {@code email} in one pass. Throws ValidationException with the same
+     * messages as {@link Validation#validateEmail(String)} if it is invalid.
+     */
+    static EmailAddress parse(String email) {
+        int at = scan(email);
+        int start = trimStart(email);
+        int end = trimEnd(email);
+        String address = start == 0 && end == email.length() ? email : email.substring(start, end);
+        int localEnd = at - start;
+        return new EmailAddress(address, address.substring(0, localEnd),
+                normalizeDomain(address.substring(localEnd + 1)));
+    }
+
+    /**
+     * Validates {@code email} without allocating and returns the index of its {@code @}.
+     * Accepts exactly what {@code ^[^\s@]+@[^\s@]+\.[^\s@]+$} accepts after trimming:
+     * one {@code @}, a non-empty local part, and a domain with an inner dot.
+     */
+    static int scan(String email) {
+        if (email == null || email.isEmpty()) {
+            throw new ValidationException("Email is required", 422, null);
+        }
+        int start = trimStart(email);
+        int end = trimEnd(email);
+        if (start >= end) {
+            throw new ValidationException("Email cannot be empty", 422, null);
+        }
+        int at = -1;
+        boolean innerDot = false;
+        for (int i = start; i < end; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                if (at >= 0) throw invalid();
+                at = i;
+            } else if (isRegexSpace(c)) {
+                throw invalid();
+            } else if (c == '.' && at >= 0 && i > at + 1 && i < end - 1) {
+                innerDot = true;
+            }
+        }
+        if (at <= start || !innerDot) throw invalid();
+        return at;
+    }
+
+    private static ValidationException invalid() {
+        return new ValidationException("Invalid email format", 422, null);
+    }
+
+    /** Matches the characters of the regex class {@code \s}. */
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static int trimStart(String s) {
+        int i = 0;
+        while (i < s.length() && s.charAt(i) <= ' ') i++;
+        return i;
+    }
+
+    private static int trimEnd(String s) {
+        int i = s.length();
+        while (i > 0 && s.charAt(i - 1) <= ' ') i--;
+        return i;
+    }
+
+    private static String normalizeDomain(String domain) {
+        boolean ascii = true;
+        boolean lower = true;
+        for (int i = 0; i < domain.length(); i++) {
+            char c = domain.charAt(i);
+            if (c >= 0x80) ascii = false;
+            else if (c >= 'A' && c <= 'Z') lower = false;
+        }
+        if (ascii) return lower ? domain : domain.toLowerCase(Locale.ROOT);
+        try {
+            return IDN.toASCII(domain, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            // Not a valid IDN; the format check still accepts it, so keep it as a plain key.
+            return domain.toLowerCase(Locale.ROOT);
+        }
+    }
+}
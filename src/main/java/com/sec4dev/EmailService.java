@@ -1,40 +1,216 @@
 package com.sec4dev;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sec4dev.models.CacheStats;
 import com.sec4dev.models.EmailCheckResult;
 
-import java.util.Map;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
 
 /** Email check service. */
 public final class EmailService {
 
+    private static final String PATH = "/email/check";
+
     private final com.sec4dev.HttpClient http;
     private final com.sec4dev.HttpClient.RateLimitCallback onRateLimit;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final Endpoint endpoint;
+    private final ResultCache<EmailCheckResult> cache;
+    private final ResultCache<EmailCheckResult> domainCache;
+    private final MappedCache<EmailCheckResult> diskCache;
+    private final DiskCacheConfig diskConfig;
+    private final SingleFlight<EmailCheckResult> singleFlight;
+    private final int bulkConcurrency;
+    private final Function<String, EmailCheckResult> fallback;
 
-    EmailService(com.sec4dev.HttpClient http, com.sec4dev.HttpClient.RateLimitCallback onRateLimit) {
+    EmailService(com.sec4dev.HttpClient http, com.sec4dev.HttpClient.RateLimitCallback onRateLimit,
+                 ResultCache<EmailCheckResult> cache, ResultCache<EmailCheckResult> domainCache,
+                 MappedCache<EmailCheckResult> diskCache, DiskCacheConfig diskConfig,
+                 SingleFlight<EmailCheckResult> singleFlight,
+                 int bulkConcurrency, Function<String, EmailCheckResult> fallback) {
         this.http = http;
+        this.endpoint = http.endpoint(PATH, "email");
         this.onRateLimit = onRateLimit;
+        this.cache = cache;
+        this.domainCache = domainCache;
+        this.diskCache = diskCache;
+        this.diskConfig = diskConfig;
+        this.singleFlight = singleFlight;
+        this.bulkConcurrency = bulkConcurrency;
+        this.fallback = fallback;
     }
 
     /** Check if an email uses a disposable domain. */
     public EmailCheckResult check(String email) {
-        Validation.validateEmail(email);
-        String path = "/email/check";
-        Map<String, String> body = Map.of("email", email.trim());
-        byte[] out = http.post(path, body, onRateLimit);
+        EmailAddress address = EmailAddress.parse(email);
+        EmailCheckResult cached = cached(address);
+        if (cached != null) return cached;
+        if (singleFlight == null) return fetch(address);
+        return singleFlight.execute(PATH, address.getNormalized(), () -> fetch(address));
+    }
+
+    /**
+     * Check an email without blocking the calling thread.
+     * The future completes exceptionally with a {@link Sec4DevException}
+     * (including {@link ValidationException} for invalid input).
+     */
+    public CompletableFuture<EmailCheckResult> checkAsync(String email) {
+        EmailAddress address;
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> m = mapper.readValue(out, Map.class);
-            String e = (String) m.getOrDefault("email", email);
-            String domain = (String) m.getOrDefault("domain", "");
-            boolean disposable = Boolean.TRUE.equals(m.get("is_disposable"));
-            return new EmailCheckResult(e, domain, disposable);
-        } catch (Exception e) {
-            throw new Sec4DevException("Failed to parse response: " + e.getMessage(), 0, null);
+            address = EmailAddress.parse(email);
+        } catch (ValidationException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        EmailCheckResult cached = cached(address);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        if (singleFlight == null) return fetchAsync(address);
+        return singleFlight.executeAsync(PATH, address.getNormalized(), () -> fetchAsync(address));
+    }
+
+    private EmailCheckResult fetch(EmailAddress address) {
+        byte[] out;
+        try {
+            out = http.post(endpoint, address.getAddress(), onRateLimit);
+        } catch (CircuitOpenException e) {
+            if (fallback == null) throw e;
+            return fallback.apply(address.getAddress());
+        }
+        EmailCheckResult result = http.decode(endpoint, out, b -> JsonCodec.decodeEmail(b, address.getAddress()));
+        store(address, result);
+        return result;
+    }
+
+    private CompletableFuture<EmailCheckResult> fetchAsync(EmailAddress address) {
+        CompletableFuture<EmailCheckResult> f = http.postAsync(endpoint, address.getAddress(), onRateLimit)
+                .thenApply(out -> {
+                    EmailCheckResult result = http.decode(endpoint, out, b -> JsonCodec.decodeEmail(b, address.getAddress()));
+                    store(address, result);
+                    return result;
+                });
+        return fallback == null ? f : f.handle((result, err) -> {
+            if (err == null) return result;
+            Throwable cause = com.sec4dev.HttpClient.unwrap(err);
+            if (cause instanceof CircuitOpenException) return fallback.apply(address.getAddress());
+            throw err instanceof CompletionException ? (CompletionException) err : new CompletionException(err);
+        });
+    }
+
+    /**
+     * Looks up the domain cache first, since a disposable answer covers every
+     * address on the domain, then the per-address cache, then the disk cache.
+     */
+    private EmailCheckResult cached(EmailAddress address) {
+        if (domainCache != null) {
+            EmailCheckResult hit = domainCache.refreshAhead()
+                    ? domainCache.get(address.getDomain(), () -> refresh(address, domainCache, address.getDomain()))
+                    : domainCache.get(address.getDomain());
+            if (hit != null) {
+                http.cacheLookup(endpoint, true);
+                return new EmailCheckResult(address.getAddress(), hit.getDomain(), hit.isDisposable());
+            }
+        }
+        if (cache == null && diskCache == null) {
+            if (domainCache != null) http.cacheLookup(endpoint, false);
+            return null;
+        }
+        EmailCheckResult hit = cache == null ? null
+                : cache.refreshAhead() ? cache.get(address.getNormalized(), () -> refresh(address, cache, address.getNormalized()))
+                : cache.get(address.getNormalized());
+        if (hit == null && diskCache != null) {
+            EmailCheckResult stored = diskCache.get(address.getNormalized());
+            if (stored != null) {
+                hit = new EmailCheckResult(address.getAddress(), stored.getDomain(), stored.isDisposable());
+                if (cache != null) cache.put(address.getNormalized(), hit);
+            }
+        }
+        http.cacheLookup(endpoint, hit != null);
+        return hit;
+    }
+
+    /** Re-fetches a result in the background while {@code from} keeps serving the old one. */
+    private void refresh(EmailAddress address, ResultCache<EmailCheckResult> from, String key) {
+        CompletableFuture<EmailCheckResult> f;
+        try {
+            f = singleFlight == null ? fetchAsync(address)
+                    : singleFlight.executeAsync(PATH, address.getNormalized(), () -> fetchAsync(address));
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+        f.whenComplete((r, err) -> from.refreshed(key));
+    }
+
+    private void store(EmailAddress address, EmailCheckResult result) {
+        if (domainCache != null) domainCache.put(address.getDomain(), result, !result.isDisposable());
+        if (cache != null) cache.put(address.getNormalized(), result);
+        if (diskCache != null) {
+            long ttl = result.isDisposable() ? diskConfig.getTtlMs() : diskConfig.getNegativeTtlMs();
+            diskCache.put(address.getNormalized(), result, ttl);
         }
     }
 
+    /**
+     * Check many email addresses at once. Duplicate inputs are checked once, up to
+     * {@code bulkConcurrency} requests are in flight over the shared connection pool,
+     * and per-input failures are reported in {@link BatchResult#getErrors()}.
+     */
+    public BatchResult<EmailCheckResult> checkAll(Collection<String> emails) {
+        return BulkExecutor.await(checkAllAsync(emails));
+    }
+
+    /** Non-blocking variant of {@link #checkAll}. */
+    public CompletableFuture<BatchResult<EmailCheckResult>> checkAllAsync(Collection<String> emails) {
+        return BulkExecutor.run(emails, bulkConcurrency, this::checkAsync);
+    }
+
+    /**
+     * A Reactive Streams stage that checks email addresses from upstream with {@link #checkAsync}
+     * and publishes the results. Upstream demand follows downstream demand, is capped at
+     * {@code bulkConcurrency} inputs in flight, and is released at the paced rate when
+     * rate-limit pacing is on, so no thread blocks on a response. Results arrive in completion
+     * order; a failed check cancels upstream and is signalled with {@code onError}.
+     * Each processor accepts one subscriber.
+     */
+    public Flow.Processor<String, EmailCheckResult> processor() {
+        return processor(bulkConcurrency);
+    }
+
+    /** Like {@link #processor()} with at most {@code concurrency} checks in flight. */
+    public Flow.Processor<String, EmailCheckResult> processor(int concurrency) {
+        return new CheckProcessor<>(this::checkAsync, http, concurrency);
+    }
+
+    /** State of this endpoint's circuit breaker; always {@code CLOSED} when none is configured. */
+    public CircuitState getCircuitState() {
+        return endpoint.breaker != null ? endpoint.breaker.state() : CircuitState.CLOSED;
+    }
+
+    /** Requests failed fast (or answered by the fallback) because the circuit was open. */
+    public long getCircuitRejectedCount() {
+        return endpoint.breaker != null ? endpoint.breaker.rejectedCount() : 0;
+    }
+
+    /** Number of lookups that shared an identical in-flight request instead of sending their own. */
+    public long getCoalescedCount() {
+        return singleFlight != null ? singleFlight.coalescedCount() : 0;
+    }
+
+    /** Counters for the per-address email cache; all zero when caching is disabled. */
+    public CacheStats getCacheStats() {
+        return cache != null ? cache.stats() : new CacheStats(0, 0, 0, 0);
+    }
+
+    /** Counters for the domain-keyed email cache; all zero when it is disabled. */
+    public CacheStats getDomainCacheStats() {
+        return domainCache != null ? domainCache.stats() : new CacheStats(0, 0, 0, 0);
+    }
+
+    /** Counters for the on-disk email cache; all zero when it is disabled. */
+    public CacheStats getDiskCacheStats() {
+        return diskCache != null ? diskCache.stats() : new CacheStats(0, 0, 0, 0);
+    }
+
     /** Return true if the email domain is disposable. */
     public boolean isDisposable(String email) {
         return check(email).isDisposable();
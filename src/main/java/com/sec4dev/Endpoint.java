@@ -0,0 +1,94 @@
+package com.sec4dev;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A POST endpoint whose body is a one-field JSON object such as
+ * {@code {"ip":"..."}}. The URI and headers are built once into a request
+ * template, and bodies are written straight into a {@code byte[]}.
+ */
+final class Endpoint {
+
+    private static final byte[] SUFFIX = {'"', '}'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /** Path relative to the base URL, used to label metrics. */
+    final String path;
+    private final byte[] prefix;
+    // Never modified after construction; copy() only reads it.
+    private final HttpRequest.Builder template;
+    /** Recent per-attempt round-trip times, used to pick the hedging delay. */
+    final LatencyHistogram latency = new LatencyHistogram(10_000);
+    /** Hedging delay last derived from {@link #latency}, and the sample count it was derived at. */
+    volatile long hedgeDelayMs = -1;
+    volatile long hedgeDelaySamples;
+    /** Null when the client has no circuit breaker configured. */
+    final CircuitBreaker breaker;
+
+    Endpoint(String path, String field, HttpRequest.Builder template, CircuitBreaker breaker) {
+        this.path = path;
+        this.prefix = ("{\"" + field + "\":\"").getBytes(StandardCharsets.UTF_8);
+        this.template = template;
+        this.breaker = breaker;
+    }
+
+    HttpRequest request(String value) {
+        return template.copy().POST(HttpRequest.BodyPublishers.ofByteArray(body(value))).build();
+    }
+
+    /** Encodes {@code {"field":"value"}} as UTF-8 with JSON string escaping. */
+    byte[] body(String value) {
+        int len = value.length();
+        int size = prefix.length + SUFFIX.length;
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x20) size += 6;
+            else if (c == '"' || c == '\\') size += 2;
+            else if (c < 0x80) size += 1;
+            else if (c < 0x800) size += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) size += 1;
+            else size += 3;
+        }
+        byte[] out = new byte[size];
+        System.arraycopy(prefix, 0, out, 0, prefix.length);
+        int pos = prefix.length;
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x20) {
+                out[pos++] = '\\';
+                out[pos++] = 'u';
+                out[pos++] = '0';
+                out[pos++] = '0';
+                out[pos++] = HEX[c >> 4];
+                out[pos++] = HEX[c & 0xf];
+            } else if (c == '"' || c == '\\') {
+                out[pos++] = '\\';
+                out[pos++] = (byte) c;
+            } else if (c < 0x80) {
+                out[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xc0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                out[pos++] = (byte) (0xf0 | (cp >> 18));
+                out[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                out[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                out[pos++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate: replaced like String.getBytes(UTF_8) does.
+                out[pos++] = '?';
+            } else {
+                out[pos++] = (byte) (0xe0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                out[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        System.arraycopy(SUFFIX, 0, out, pos, SUFFIX.length);
+        return out;
+    }
+}
@@ -0,0 +1,492 @@
+package com.sec4dev;
+
+import com.sec4dev.models.EnrichmentProgress;
+import com.sec4dev.models.IPCheckResult;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Enriches a stream of NDJSON or CSV records with IP check results. Records
+ * are read in chunks, their keys normalized and deduplicated over a sliding
+ * window, looked up with at most {@code concurrency} calls in flight, and
+ * written back out in input order or as they complete. At most
+ * {@code maxPendingRecords} records are held between reading and writing, so
+ * the reader waits for the writer and memory stays flat for any input size.
+ *
+ * <p>Invalid keys and failed lookups do not stop the run; the record is
+ * written with an error instead (see {@link RecordFormat}). Lookups go
+ * through {@link IPService#checkAsync}, so its caches, coalescing and
+ * circuit breaker apply.
+ *
+ * <pre>{@code
+ * EnrichmentProgress done = EnrichmentPipeline.builder(client.getIp())
+ *         .format(RecordFormat.CSV).field("src_ip")
+ *         .build()
+ *         .run(Paths.get("in.csv"), Paths.get("out.csv"));
+ * }</pre>
+ */
+public final class EnrichmentPipeline {
+
+    private static final int DEFAULT_CONCURRENCY = 64;
+    private static final int DEFAULT_MAX_PENDING = 10_000;
+    private static final int DEFAULT_DEDUP_WINDOW = 100_000;
+    private static final byte[] JSON_RESULT = ",\"sec4dev\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_ERROR = ",\"sec4dev_error\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CSV_COLUMNS = (",sec4dev_classification,sec4dev_confidence,sec4dev_asn,"
+            + "sec4dev_org,sec4dev_provider,sec4dev_country,sec4dev_region,sec4dev_hosting,"
+            + "sec4dev_residential,sec4dev_mobile,sec4dev_vpn,sec4dev_tor,sec4dev_proxy,sec4dev_error")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final int CSV_RESULT_COLUMNS = 13;
+
+    private final IPService ip;
+    private final RecordFormat format;
+    private final String field;
+    private final int concurrency;
+    private final int maxPending;
+    private final int dedupWindow;
+    private final boolean ordered;
+    private final long progressEvery;
+    private final Consumer<EnrichmentProgress> onProgress;
+
+    private EnrichmentPipeline(Builder b) {
+        if (b.field == null || b.field.isEmpty()) {
+            throw new IllegalArgumentException("Key field is required");
+        }
+        if (b.concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        if (b.maxPending <= 0) {
+            throw new IllegalArgumentException("Max pending records must be positive");
+        }
+        if (b.dedupWindow < 0) {
+            throw new IllegalArgumentException("Dedup window must not be negative");
+        }
+        if (b.onProgress != null && b.progressEvery <= 0) {
+            throw new IllegalArgumentException("Progress interval must be positive");
+        }
+        this.ip = b.ip;
+        this.format = b.format;
+        this.field = b.field;
+        this.concurrency = b.concurrency;
+        this.maxPending = b.maxPending;
+        this.dedupWindow = b.dedupWindow;
+        this.ordered = b.ordered;
+        this.progressEvery = b.progressEvery;
+        this.onProgress = b.onProgress;
+    }
+
+    /** Enriches {@code input} into {@code output}, replacing it if it exists. */
+    public EnrichmentProgress run(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             OutputStream out = Files.newOutputStream(output)) {
+            return run(in, out);
+        }
+    }
+
+    /** Enriches {@code input} into {@code output}. Neither stream is closed. */
+    public EnrichmentProgress run(InputStream input, OutputStream output) throws IOException {
+        return run(Channels.newChannel(input), output);
+    }
+
+    private EnrichmentProgress run(ReadableByteChannel in, OutputStream out) throws IOException {
+        Run run = new Run(new BufferedOutputStream(out, RecordReader.CHUNK));
+        Thread writer = new Thread(run::write, "sec4dev-enrich-writer");
+        writer.setDaemon(true);
+        writer.start();
+        try {
+            run.read(new RecordReader(in, format == RecordFormat.CSV));
+        } catch (IOException | RuntimeException e) {
+            run.fail(e);
+        }
+        run.finish();
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        Throwable failure = run.failure;
+        if (failure instanceof IOException) throw (IOException) failure;
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        return run.progress();
+    }
+
+    public static Builder builder(IPService ip) {
+        return new Builder(ip);
+    }
+
+    /** A record between reading and writing. */
+    private static final class Pending {
+        final byte[] record;
+        final CompletableFuture<IPCheckResult> result;
+        final boolean header;
+        final long count;
+
+        Pending(byte[] record, CompletableFuture<IPCheckResult> result, boolean header, long count) {
+            this.record = record;
+            this.result = result;
+            this.header = header;
+            this.count = count;
+        }
+    }
+
+    /** State of one run; the calling thread reads, a dedicated thread writes. */
+    private final class Run {
+        private final OutputStream out;
+        private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+        private final Semaphore pending = new Semaphore(maxPending);
+        private final Semaphore calls = new Semaphore(concurrency);
+        private final Map<String, CompletableFuture<IPCheckResult>> recent =
+                new LinkedHashMap<String, CompletableFuture<IPCheckResult>>() {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<IPCheckResult>> e) {
+                        return size() > dedupWindow;
+                    }
+                };
+        private final LongAdder read = new LongAdder();
+        private final LongAdder written = new LongAdder();
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder deduplicated = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final long start = System.nanoTime();
+        private long emitted;
+        private int keyColumn = -1;
+        private volatile Throwable failure;
+
+        Run(OutputStream out) {
+            this.out = out;
+        }
+
+        void read(RecordReader reader) throws IOException {
+            for (byte[] rec; failure == null && (rec = reader.next()) != null; ) {
+                if (isBlank(rec)) continue;
+                try {
+                    pending.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while enriching");
+                }
+                if (format == RecordFormat.CSV && keyColumn < 0) {
+                    keyColumn = Csv.indexOf(Csv.decode(rec), field);
+                    if (keyColumn < 0) {
+                        pending.release();
+                        throw new ValidationException("CSV header has no column " + field, 422, null);
+                    }
+                    emit(new Pending(rec, null, true, 0));
+                    continue;
+                }
+                read.increment();
+                emit(new Pending(rec, lookup(rec), false, 0));
+            }
+        }
+
+        private CompletableFuture<IPCheckResult> lookup(byte[] rec) {
+            String key;
+            try {
+                String raw = format == RecordFormat.CSV
+                        ? Csv.field(Csv.decode(rec), keyColumn)
+                        : JsonCodec.readField(rec, field);
+                if (raw == null) throw new ValidationException("Record has no " + field, 422, null);
+                key = Validation.normalizeIp(raw);
+            } catch (Sec4DevException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<IPCheckResult> f = dedupWindow > 0 ? recent.get(key) : null;
+            if (f != null) {
+                deduplicated.increment();
+                return f;
+            }
+            calls.acquireUninterruptibly();
+            lookups.increment();
+            try {
+                f = ip.checkAsync(key);
+            } catch (RuntimeException e) {
+                f = CompletableFuture.failedFuture(e);
+            }
+            f.whenComplete((r, e) -> calls.release());
+            if (dedupWindow > 0) recent.put(key, f);
+            return f;
+        }
+
+        private void emit(Pending p) {
+            emitted++;
+            if (ordered || p.result == null) queue.add(p);
+            else p.result.whenComplete((r, e) -> queue.add(p));
+        }
+
+        void finish() {
+            queue.add(new Pending(null, null, false, emitted));
+        }
+
+        void fail(Throwable t) {
+            if (failure == null) failure = t;
+        }
+
+        /** Writes records until the reader has finished and every emitted record is out. */
+        void write() {
+            long n = 0;
+            long records = 0;
+            long expected = -1;
+            while (expected < 0 || n < expected) {
+                Pending p;
+                try {
+                    p = queue.take();
+                } catch (InterruptedException e) {
+                    fail(new InterruptedIOException("Interrupted while enriching"));
+                    return;
+                }
+                if (p.record == null) {
+                    expected = p.count;
+                    continue;
+                }
+                n++;
+                if (failure == null) {
+                    try {
+                        writeRecord(p);
+                    } catch (IOException | RuntimeException e) {
+                        fail(e);
+                    }
+                }
+                pending.release();
+                if (!p.header) records++;
+                if (onProgress != null && !p.header && records % progressEvery == 0 && failure == null) {
+                    // A throwing listener ends the run; the loop keeps draining so the reader is not left blocked.
+                    try {
+                        onProgress.accept(progress());
+                    } catch (RuntimeException e) {
+                        fail(e);
+                    }
+                }
+            }
+            try {
+                out.flush();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void writeRecord(Pending p) throws IOException {
+            byte[] rec = p.record;
+            if (p.header) {
+                out.write(rec);
+                out.write(CSV_COLUMNS);
+                out.write('\n');
+                return;
+            }
+            IPCheckResult result = null;
+            String error = null;
+            try {
+                result = p.result.join();
+            } catch (CompletionException | CancellationException e) {
+                error = BulkExecutor.toSec4Dev(e).getMessage();
+                failed.increment();
+            }
+            if (format == RecordFormat.CSV) {
+                out.write(rec);
+                out.write(Csv.columns(result, error).getBytes(StandardCharsets.UTF_8));
+            } else {
+                int end = rec.length;
+                while (end > 0 && rec[end - 1] <= ' ') end--;
+                if (end == 0 || rec[end - 1] != '}') {
+                    // Not an object; the lookup already failed, so pass the record through.
+                    out.write(rec);
+                } else {
+                    int prev = end - 2;
+                    while (prev >= 0 && rec[prev] <= ' ') prev--;
+                    boolean empty = prev >= 0 && rec[prev] == '{';
+                    out.write(rec, 0, end - 1);
+                    byte[] name = result != null ? JSON_RESULT : JSON_ERROR;
+                    out.write(name, empty ? 1 : 0, name.length - (empty ? 1 : 0));
+                    out.write(result != null ? JsonCodec.encodeIp(result) : JsonCodec.encodeString(error));
+                    out.write('}');
+                }
+            }
+            out.write('\n');
+            written.increment();
+        }
+
+        EnrichmentProgress progress() {
+            return new EnrichmentProgress(read.sum(), written.sum(), lookups.sum(), deduplicated.sum(),
+                    failed.sum(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private static boolean isBlank(byte[] rec) {
+        for (byte b : rec) {
+            if (b > ' ') return false;
+        }
+        return true;
+    }
+
+    /** Minimal RFC 4180 field handling for the key column and appended result columns. */
+    private static final class Csv {
+
+        static String decode(byte[] rec) {
+            String s = new String(rec, StandardCharsets.UTF_8);
+            return !s.isEmpty() && s.charAt(0) == '\uFEFF' ? s.substring(1) : s;
+        }
+
+        static int indexOf(String header, String name) {
+            for (int i = 0; ; i++) {
+                String f = field(header, i);
+                if (f == null) return -1;
+                if (f.trim().equals(name)) return i;
+            }
+        }
+
+        /** Returns field {@code index} of a row, unquoted, or null if the row is shorter. */
+        static String field(String row, int index) {
+            int col = 0;
+            int i = 0;
+            int n = row.length();
+            while (true) {
+                StringBuilder sb = col == index ? new StringBuilder() : null;
+                if (i < n && row.charAt(i) == '"') {
+                    i++;
+                    while (i < n) {
+                        char c = row.charAt(i++);
+                        if (c == '"') {
+                            if (i < n && row.charAt(i) == '"') i++;
+                            else break;
+                        }
+                        if (sb != null) sb.append(c);
+                    }
+                }
+                while (i < n && row.charAt(i) != ',') {
+                    if (sb != null) sb.append(row.charAt(i));
+                    i++;
+                }
+                if (sb != null) return sb.toString().trim();
+                if (i >= n) return null;
+                i++;
+                col++;
+            }
+        }
+
+        static String columns(IPCheckResult r, String error) {
+            StringBuilder sb = new StringBuilder(128);
+            if (r == null) {
+                for (int i = 0; i < CSV_RESULT_COLUMNS; i++) sb.append(',');
+                return sb.append(',').append(escape(error)).toString();
+            }
+            sb.append(',').append(escape(r.getClassification()))
+                    .append(',').append(r.getConfidence())
+                    .append(',').append(r.getNetwork().getAsn() != null ? r.getNetwork().getAsn().toString() : "")
+                    .append(',').append(escape(r.getNetwork().getOrg()))
+                    .append(',').append(escape(r.getNetwork().getProvider()))
+                    .append(',').append(escape(r.getGeo().getCountry()))
+                    .append(',').append(escape(r.getGeo().getRegion()))
+                    .append(',').append(r.getSignals().isHosting())
+                    .append(',').append(r.getSignals().isResidential())
+                    .append(',').append(r.getSignals().isMobile())
+                    .append(',').append(r.getSignals().isVpn())
+                    .append(',').append(r.getSignals().isTor())
+                    .append(',').append(r.getSignals().isProxy())
+                    .append(',');
+            return sb.toString();
+        }
+
+        static String escape(String s) {
+            if (s == null) return "";
+            boolean quote = false;
+            for (int i = 0; i < s.length() && !quote; i++) {
+                char c = s.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            return quote ? '"' + s.replace("\"", "\"\"") + '"' : s;
+        }
+    }
+
+    public static final class Builder {
+        private final IPService ip;
+        private RecordFormat format = RecordFormat.NDJSON;
+        private String field = "ip";
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private int maxPending = DEFAULT_MAX_PENDING;
+        private int dedupWindow = DEFAULT_DEDUP_WINDOW;
+        private boolean ordered = true;
+        private long progressEvery;
+        private Consumer<EnrichmentProgress> onProgress;
+
+        private Builder(IPService ip) {
+            if (ip == null) {
+                throw new IllegalArgumentException("IP service is required");
+            }
+            this.ip = ip;
+        }
+
+        /** Input and output format (default: NDJSON). */
+        public Builder format(RecordFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        /** NDJSON field or CSV header column holding the IP (default: {@code ip}). */
+        public Builder field(String field) {
+            this.field = field;
+            return this;
+        }
+
+        /** Maximum lookups in flight (default: 64). */
+        public Builder concurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /** Maximum records read but not yet written; bounds memory (default: 10000). */
+        public Builder maxPendingRecords(int maxPending) {
+            this.maxPending = maxPending;
+            return this;
+        }
+
+        /** Number of recent distinct keys whose lookups are reused by repeats; 0 disables (default: 100000). */
+        public Builder dedupWindow(int keys) {
+            this.dedupWindow = keys;
+            return this;
+        }
+
+        /** Write records in input order (default), or as their lookups complete. */
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * Report progress from the writer thread after every {@code records} records written.
+         * An exception from the listener stops the run and is thrown from {@code run}.
+         */
+        public Builder onProgress(long records, Consumer<EnrichmentProgress> listener) {
+            this.progressEvery = records;
+            this.onProgress = listener;
+            return this;
+        }
+
+        public EnrichmentPipeline build() {
+            return new EnrichmentPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.sec4dev;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Structured fan-out of blocking calls: every task is started and joined
+ * inside {@link #run}, the first failure cancels (interrupts) the rest, and
+ * the method does not return until all task threads have exited. At most
+ * {@code concurrency} tasks run at once.
+ */
+final class FanOut {
+
+    private FanOut() {}
+
+    static <T, R> Map<T, R> run(Collection<T> inputs, int concurrency, Executor executor, long timeoutMs,
+                                Function<? super T, ? extends R> fn) {
+        List<T> keys = new ArrayList<>(new LinkedHashSet<>(inputs));
+        List<FutureTask<R>> tasks = new ArrayList<>(keys.size());
+        ConcurrentLinkedQueue<FutureTask<R>> started = new ConcurrentLinkedQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Semaphore slots = new Semaphore(concurrency);
+        long deadline = timeoutMs > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs) : 0;
+        try {
+            for (T key : keys) {
+                if (!acquire(slots, 1, deadline)) throw timeout(timeoutMs);
+                if (failure.get() != null) {
+                    slots.release();
+                    break;
+                }
+                FutureTask<R> task = new FutureTask<>(() -> fn.apply(key));
+                tasks.add(task);
+                started.add(task);
+                try {
+                    executor.execute(() -> {
+                        try {
+                            task.run();
+                            if (!task.isCancelled()) {
+                                try {
+                                    task.get();
+                                } catch (ExecutionException e) {
+                                    if (failure.compareAndSet(null, e.getCause())) started.forEach(t -> t.cancel(true));
+                                } catch (InterruptedException ignored) {
+                                    // Not reachable: the task has already completed.
+                                }
+                            }
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    slots.release();
+                    throw new Sec4DevException("Fan-out executor rejected a task", 0, null);
+                }
+            }
+            if (!acquire(slots, concurrency, deadline)) throw timeout(timeoutMs);
+        } catch (InterruptedException e) {
+            cancelAndJoin(started, slots, concurrency);
+            Thread.currentThread().interrupt();
+            throw new Sec4DevException("Interrupted", 0, null);
+        } catch (RuntimeException e) {
+            cancelAndJoin(started, slots, concurrency);
+            throw e;
+        }
+        Throwable cause = failure.get();
+        if (cause != null) throw BulkExecutor.toSec4Dev(cause);
+        Map<T, R> results = new LinkedHashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                results.put(keys.get(i), tasks.get(i).get());
+            } catch (InterruptedException | ExecutionException e) {
+                throw BulkExecutor.toSec4Dev(e);
+            }
+        }
+        return results;
+    }
+
+    /** Shared fallback for fan-out when no executor was configured and virtual threads are unavailable. */
+    static Executor defaultExecutor() {
+        return DefaultPool.POOL;
+    }
+
+    private static boolean acquire(Semaphore slots, int permits, long deadline) throws InterruptedException {
+        if (deadline == 0) {
+            slots.acquire(permits);
+            return true;
+        }
+        return slots.tryAcquire(permits, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private static <R> void cancelAndJoin(Collection<FutureTask<R>> started, Semaphore slots, int concurrency) {
+        started.forEach(t -> t.cancel(true));
+        // Wait for interrupted tasks to leave, so no work outlives the call.
+        slots.acquireUninterruptibly(concurrency);
+    }
+
+    private static Sec4DevException timeout(long timeoutMs) {
+        return new Sec4DevException("Fan-out did not finish within " + timeoutMs + "ms", 0, null);
+    }
+
+    private static final class DefaultPool {
+        static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "sec4dev-fanout");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
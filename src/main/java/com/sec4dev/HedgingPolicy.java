@@ -0,0 +1,87 @@
+package com.sec4dev;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for hedged requests: if a lookup has not answered within the
+ * observed latency percentile, an identical second request is sent and the
+ * first answer wins. Only safe because the lookups are read-only.
+ */
+public final class HedgingPolicy {
+
+    private final double percentile;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+    private final double maxExtraRatio;
+
+    private HedgingPolicy(Builder b) {
+        if (b.percentile <= 0 || b.percentile >= 1) {
+            throw new IllegalArgumentException("Hedging percentile must be between 0 and 1");
+        }
+        if (b.minDelayMs < 0 || b.maxDelayMs < b.minDelayMs) {
+            throw new IllegalArgumentException("Hedging delays must satisfy 0 <= min <= max");
+        }
+        if (b.maxExtraRatio <= 0 || b.maxExtraRatio > 1) {
+            throw new IllegalArgumentException("Hedging budget must be between 0 and 1");
+        }
+        this.percentile = b.percentile;
+        this.minDelayMs = b.minDelayMs;
+        this.maxDelayMs = b.maxDelayMs;
+        this.maxExtraRatio = b.maxExtraRatio;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public long getMinDelayMs() {
+        return minDelayMs;
+    }
+
+    /** Upper bound on the hedge delay; also used until enough latencies have been observed. */
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    /** Hedges allowed per regular request, e.g. 0.05 for at most 5% extra load. */
+    public double getMaxExtraRatio() {
+        return maxExtraRatio;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private double percentile = 0.95;
+        private long minDelayMs = 10;
+        private long maxDelayMs = 1_000;
+        private double maxExtraRatio = 0.05;
+
+        private Builder() {}
+
+        public Builder percentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        public Builder minDelay(long duration, TimeUnit unit) {
+            this.minDelayMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder maxDelay(long duration, TimeUnit unit) {
+            this.maxDelayMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder maxExtraRatio(double ratio) {
+            this.maxExtraRatio = ratio;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.sec4dev;
+
+import com.sec4dev.models.EndpointMetrics;
+import com.sec4dev.models.LatencySummary;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in {@link Sec4DevMetrics} that keeps counters and log-linear latency
+ * histograms per endpoint in a few KB each, with no locks on the record path.
+ * Read it with {@link #snapshot(String)}.
+ */
+public final class HistogramMetrics implements Sec4DevMetrics {
+
+    private final ConcurrentHashMap<String, Stats> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void onCall(String endpoint, boolean success, long nanos) {
+        Stats s = stats(endpoint);
+        s.calls.increment();
+        if (!success) s.failures.increment();
+        s.call.record(nanos / 1000);
+    }
+
+    @Override
+    public void onAttempt(String endpoint, int attempt, int statusCode, long nanos, long bytesOut, long bytesIn) {
+        Stats s = stats(endpoint);
+        if (attempt > 0) s.retries.increment();
+        s.bytesOut.add(bytesOut);
+        s.bytesIn.add(bytesIn);
+        s.statusCodes.computeIfAbsent(statusCode, k -> new LongAdder()).increment();
+        s.attempt.record(nanos / 1000);
+    }
+
+    @Override
+    public void onBackoff(String endpoint, long millis) {
+        stats(endpoint).backoff.record(millis * 1000);
+    }
+
+    @Override
+    public void onCacheLookup(String endpoint, boolean hit) {
+        Stats s = stats(endpoint);
+        (hit ? s.cacheHits : s.cacheMisses).increment();
+    }
+
+    @Override
+    public void onEncode(String endpoint, long nanos) {
+        stats(endpoint).encode.record(nanos / 1000);
+    }
+
+    @Override
+    public void onDecode(String endpoint, long nanos) {
+        stats(endpoint).decode.record(nanos / 1000);
+    }
+
+    /** Endpoints that have reported at least one event. */
+    public Set<String> getEndpoints() {
+        return endpoints.keySet();
+    }
+
+    /** Current counters for an endpoint; all zero if it has not reported anything. */
+    public EndpointMetrics snapshot(String endpoint) {
+        Stats s = endpoints.get(endpoint);
+        if (s == null) s = new Stats();
+        Map<Integer, Long> codes = new TreeMap<>();
+        s.statusCodes.forEach((code, n) -> codes.put(code, n.sum()));
+        return new EndpointMetrics(s.calls.sum(), s.failures.sum(), s.retries.sum(),
+                s.bytesOut.sum(), s.bytesIn.sum(), s.cacheHits.sum(), s.cacheMisses.sum(), codes,
+                summary(s.call), summary(s.attempt), summary(s.backoff), summary(s.encode), summary(s.decode));
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private Stats stats(String endpoint) {
+        Stats s = endpoints.get(endpoint);
+        return s != null ? s : endpoints.computeIfAbsent(endpoint, k -> new Stats());
+    }
+
+    private static LatencySummary summary(LatencyHistogram h) {
+        return new LatencySummary(h.count(), h.percentile(0.5), h.percentile(0.9), h.percentile(0.99), h.max());
+    }
+
+    private static final class Stats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder cacheHits = new LongAdder();
+        final LongAdder cacheMisses = new LongAdder();
+        final ConcurrentHashMap<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+        final LatencyHistogram call = new LatencyHistogram(0);
+        final LatencyHistogram attempt = new LatencyHistogram(0);
+        final LatencyHistogram backoff = new LatencyHistogram(0);
+        final LatencyHistogram encode = new LatencyHistogram(0);
+        final LatencyHistogram decode = new LatencyHistogram(0);
+    }
+}
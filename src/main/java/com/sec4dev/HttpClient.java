@@ -1,14 +1,23 @@
 package com.sec4dev;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sec4dev.models.RateLimitInfo;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Internal HTTP client with retry and rate limit handling.
@@ -16,31 +25,62 @@ import java.util.concurrent.ThreadLocalRandom;
 final class HttpClient {
 
     private static final String SDK_VERSION = "1.0.0";
-    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
     private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(30);
+    private static final int HEDGE_BURST = 10;
+    private static final long HEDGE_MIN_SAMPLES = 20;
+    private static final long HEDGE_RECOMPUTE_EVERY = 100;
 
     private final String baseUrl;
     private final String apiKey;
-    private final java.net.http.HttpClient client;
+    private final Sec4DevTransport transport;
     private final int retries;
     private final long retryDelayMs;
     private final Duration readTimeout;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final RequestPacer pacer;
+    private final HedgingPolicy hedging;
+    private final TokenBudget hedgeBudget;
+    private final LongAdder hedges = new LongAdder();
+    private final CircuitBreakerConfig breakerConfig;
+    private final CircuitBreakerListener breakerListener;
+    private final RetryPolicy retryPolicy;
+    private final TokenBudget retryBudget;
+    private final LongAdder retriesDenied = new LongAdder();
+    private final Sec4DevMetrics metrics;
+    // False for the no-op default, so uninstrumented clients skip the extra clock reads.
+    private final boolean instrumented;
+    private final AdaptiveLimiter limiter;
+    // False when a client pool moves rate-limited calls to another key instead of waiting.
+    private final boolean retryRateLimited;
 
-    HttpClient(String baseUrl, String apiKey, java.net.http.HttpClient client,
-               int retries, long retryDelayMs, Duration readTimeout) {
+    HttpClient(String baseUrl, String apiKey, Sec4DevTransport transport,
+               int retries, long retryDelayMs, Duration readTimeout, RequestPacer pacer) {
+        this(baseUrl, apiKey, transport, retries, retryDelayMs, readTimeout, pacer,
+                null, null, null, null, null, null, true);
+    }
+
+    HttpClient(String baseUrl, String apiKey, Sec4DevTransport transport,
+               int retries, long retryDelayMs, Duration readTimeout, RequestPacer pacer,
+               HedgingPolicy hedging, CircuitBreakerConfig breakerConfig, CircuitBreakerListener breakerListener,
+               RetryPolicy retryPolicy, Sec4DevMetrics metrics, ConcurrencyLimitConfig limitConfig,
+               boolean retryRateLimited) {
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
         this.apiKey = apiKey;
-        this.client = client != null ? client : defaultClient();
+        this.transport = transport != null ? transport : Sec4DevTransport.builder().build();
         this.retries = retries;
         this.retryDelayMs = retryDelayMs;
         this.readTimeout = readTimeout != null && !readTimeout.isZero() ? readTimeout : DEFAULT_READ_TIMEOUT;
-    }
-
-    private static java.net.http.HttpClient defaultClient() {
-        return java.net.http.HttpClient.newBuilder()
-                .connectTimeout(CONNECT_TIMEOUT)
-                .build();
+        this.pacer = pacer;
+        this.hedging = hedging;
+        this.hedgeBudget = hedging != null ? new TokenBudget(hedging.getMaxExtraRatio(), HEDGE_BURST) : null;
+        this.breakerConfig = breakerConfig;
+        this.breakerListener = breakerListener;
+        this.retryPolicy = retryPolicy;
+        this.retryBudget = retryPolicy != null
+                ? new TokenBudget(retryPolicy.getBudgetRatio(), retryPolicy.getBudgetBurst()) : null;
+        this.metrics = metrics != null ? metrics : Sec4DevMetrics.NOOP;
+        this.instrumented = this.metrics != Sec4DevMetrics.NOOP;
+        this.limiter = limitConfig != null ? new AdaptiveLimiter(limitConfig) : null;
+        this.retryRateLimited = retryRateLimited;
     }
 
     private static int getIntHeader(HttpResponse<?> resp, String name, int def) {
@@ -61,20 +101,10 @@ final class HttpClient {
         );
     }
 
-    private String messageFromBody(byte[] body) {
-        if (body == null || body.length == 0) return "Unknown error";
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> m = mapper.readValue(body, Map.class);
-            Object d = m.get("detail");
-            return d != null ? d.toString() : "Unknown error";
-        } catch (Exception e) {
-            return "Unknown error";
-        }
-    }
-
-    private Sec4DevException exceptionFrom(int statusCode, byte[] body, HttpResponse<?> resp) {
-        String message = messageFromBody(body);
+    Sec4DevException exceptionFrom(int statusCode, byte[] body, HttpResponse<?> resp) {
+        Map<String, Object> bodyObj = JsonCodec.decodeError(body);
+        Object detail = bodyObj != null ? bodyObj.get("detail") : null;
+        String message = detail != null ? detail.toString() : "Unknown error";
         int retryAfter = 0;
         int limit = 0;
         int remaining = 0;
@@ -88,10 +118,6 @@ final class HttpClient {
                 } catch (NumberFormatException ignored) {}
             }
         }
-        Object bodyObj = null;
-        try {
-            if (body != null && body.length > 0) bodyObj = mapper.readValue(body, Map.class);
-        } catch (Exception ignored) {}
         switch (statusCode) {
             case 401: return new AuthenticationException(message, statusCode, bodyObj);
             case 402: return new PaymentRequiredException(message, statusCode, bodyObj);
@@ -110,95 +136,425 @@ final class HttpClient {
         return statusCode == 429 || statusCode == 500 || statusCode == 502 || statusCode == 503 || statusCode == 504;
     }
 
-    byte[] post(String path, Object body, RateLimitCallback onRateLimit) throws Sec4DevException {
-        String uri = baseUrl + path;
-        String bodyJson;
-        try {
-            bodyJson = body != null ? mapper.writeValueAsString(body) : "{}";
-        } catch (Exception e) {
-            throw new Sec4DevException("Failed to serialize request", 0, null);
+    private long backoff(int attempt, long prevDelayMs) {
+        if (retryPolicy == null) {
+            return retryDelayMs * (1L << attempt) + ThreadLocalRandom.current().nextInt(0, 101);
+        }
+        long cap = retryPolicy.getMaxDelayMs();
+        if (retryPolicy.getBackoff() == BackoffStrategy.EXPONENTIAL) {
+            long exp = attempt < 30 ? retryDelayMs << attempt : cap;
+            return Math.min(cap, exp + ThreadLocalRandom.current().nextInt(0, 101));
         }
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(uri))
+        long base = Math.max(1, retryDelayMs);
+        long upper = Math.max(base, Math.min(cap, Math.max(prevDelayMs, base) * 3));
+        return Math.min(cap, ThreadLocalRandom.current().nextLong(base, upper + 1));
+    }
+
+    /** Spends one retry from the shared budget; false means the caller should fail now. */
+    private boolean allowRetry() {
+        if (retryBudget == null || retryBudget.tryWithdraw()) return true;
+        retriesDenied.increment();
+        return false;
+    }
+
+    private void onSuccess() {
+        if (retryBudget != null) retryBudget.deposit();
+    }
+
+    /** True while the shared retry budget is spent and failed attempts are not retried. */
+    boolean retryBudgetExhausted() {
+        return retryBudget != null && retryBudget.isExhausted();
+    }
+
+    long retriesDeniedCount() {
+        return retriesDenied.sum();
+    }
+
+    /** True when requests are paced from the rate-limit headers. */
+    boolean paced() {
+        return pacer != null;
+    }
+
+    /** Time until the pacer has a free send slot, in ms; always 0 without pacing. */
+    long paceDelayMs() {
+        return pacer != null ? pacer.delayMs() : 0;
+    }
+
+    /** Opens the transport's connections to the API host ahead of the first request. */
+    CompletableFuture<Void> warmUp() {
+        return transport.warmUp(URI.create(baseUrl + "/"), readTimeout);
+    }
+
+    /** Builds the request template for a one-field POST endpoint; done once per service. */
+    Endpoint endpoint(String path, String field) {
+        HttpRequest.Builder template = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + path))
                 .header("X-API-Key", apiKey)
                 .header("Content-Type", "application/json")
                 .header("Accept", "application/json")
                 .header("User-Agent", "sec4dev-java/" + SDK_VERSION)
-                .timeout(readTimeout)
-                .POST(HttpRequest.BodyPublishers.ofString(bodyJson));
+                .timeout(readTimeout);
+        CircuitBreaker breaker = breakerConfig != null
+                ? new CircuitBreaker(path, breakerConfig, breakerListener) : null;
+        return new Endpoint(path, field, template, breaker);
+    }
 
-        Sec4DevException lastException = null;
-        int lastStatus = 0;
-        byte[] lastBody = null;
-        HttpResponse<byte[]> lastResp = null;
+    /**
+     * Reports rate limit headers and decides what to do with a response.
+     * Returns the delay in ms before the next attempt, or -1 if the response
+     * body should be returned. Throws when the response is a final error.
+     */
+    private long retryDelay(HttpResponse<byte[]> resp, int attempt, long prevDelayMs, RateLimitCallback onRateLimit) {
+        RateLimitInfo rl = parseRateLimit(resp);
+        if (pacer != null) pacer.update(rl);
+        if (onRateLimit != null) onRateLimit.onRateLimit(rl);
 
-        for (int attempt = 0; attempt <= retries; attempt++) {
-            try {
-                HttpRequest req = builder.build();
-                HttpResponse<byte[]> resp = client.send(req, HttpResponse.BodyHandlers.ofByteArray());
-                byte[] respBody = resp.body();
-
-                RateLimitInfo rl = parseRateLimit(resp);
-                if (onRateLimit != null) onRateLimit.onRateLimit(rl);
-
-                if (resp.statusCode() == 429) {
-                    int retryAfter = getIntHeader(resp, "Retry-After", 60);
-                    if (attempt < retries) {
-                        try {
-                            Thread.sleep(retryAfter * 1000L);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            throw new Sec4DevException("Interrupted", 0, null);
-                        }
-                        continue;
-                    }
-                    throw exceptionFrom(429, respBody, resp);
-                }
+        int status = resp.statusCode();
+        if (status == 429) {
+            int retryAfter = getIntHeader(resp, "Retry-After", 60);
+            if (!retryRateLimited) throw exceptionFrom(429, resp.body(), resp);
+            // The pacer holds every caller back and releases them one slot at a time,
+            // instead of each thread sleeping Retry-After and retrying together.
+            if (pacer != null) pacer.onRateLimited(retryAfter);
+            long wait = pacer != null ? 0 : retryAfter * 1000L;
+            boolean eligible = attempt < retries && (retryPolicy == null || wait <= retryPolicy.getMaxDelayMs());
+            if (eligible && allowRetry()) return wait;
+            throw exceptionFrom(429, resp.body(), resp);
+        }
+        if (status >= 400) {
+            if (!isRetryable(status, false) || attempt >= retries || !allowRetry()) {
+                throw exceptionFrom(status, resp.body(), resp);
+            }
+            return backoff(attempt, prevDelayMs);
+        }
+        onSuccess();
+        return -1;
+    }
 
-                if (resp.statusCode() >= 400) {
-                    Sec4DevException ex = exceptionFrom(resp.statusCode(), respBody, resp);
-                    if (!isRetryable(resp.statusCode(), false)) throw ex;
-                    lastException = ex;
-                    lastStatus = resp.statusCode();
-                    lastBody = respBody;
-                    lastResp = resp;
-                    if (attempt < retries) {
-                        long delay = retryDelayMs * (1L << attempt) + ThreadLocalRandom.current().nextInt(0, 101);
-                        try {
-                            Thread.sleep(delay);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            throw new Sec4DevException("Interrupted", 0, null);
-                        }
-                        continue;
-                    }
-                    throw ex;
-                }
+    private static void sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Sec4DevException("Interrupted", 0, null);
+        }
+    }
 
-                return respBody;
-            } catch (Sec4DevException e) {
+    byte[] post(Endpoint endpoint, String value, RateLimitCallback onRateLimit) throws Sec4DevException {
+        if (hedging != null) return await(postAsync(endpoint, value, onRateLimit));
+        if (!instrumented) return send(endpoint, value, onRateLimit);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            byte[] out = send(endpoint, value, onRateLimit);
+            success = true;
+            return out;
+        } finally {
+            metrics.onCall(endpoint.path, success, System.nanoTime() - start);
+        }
+    }
+
+    private byte[] send(Endpoint endpoint, String value, RateLimitCallback onRateLimit) {
+        HttpRequest req = encode(endpoint, value);
+        long delay = 0;
+        for (int attempt = 0; ; attempt++) {
+            if (pacer != null) {
+                long wait = pacer.reserve();
+                if (wait > 0) sleep(wait);
+            }
+            if (limiter != null) limiter.acquire();
+            CircuitBreaker breaker = endpoint.breaker;
+            long permit;
+            try {
+                permit = breaker != null ? breaker.acquire() : 0;
+            } catch (CircuitOpenException e) {
+                if (limiter != null) limiter.release();
                 throw e;
-            } catch (Exception e) {
-                lastException = new Sec4DevException(e.getMessage(), 0, null);
-                if (attempt < retries) {
-                    long delay = retryDelayMs * (1L << attempt) + ThreadLocalRandom.current().nextInt(0, 101);
-                    try {
-                        Thread.sleep(delay);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new Sec4DevException("Interrupted", 0, null);
-                    }
+            }
+            HttpResponse<byte[]> resp;
+            long start = System.nanoTime();
+            try {
+                resp = transport.client().send(req, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (InterruptedException e) {
+                if (breaker != null) breaker.release(permit);
+                if (limiter != null) limiter.release();
+                Thread.currentThread().interrupt();
+                throw new Sec4DevException("Interrupted", 0, null);
+            } catch (IOException | RuntimeException e) {
+                long elapsed = System.nanoTime() - start;
+                if (breaker != null) breaker.record(permit, true, elapsed);
+                if (limiter != null) limiter.onComplete(elapsed, true);
+                if (instrumented) metrics.onAttempt(endpoint.path, attempt, 0, elapsed, bytesOut(req), 0);
+                if (attempt < retries && allowRetry()) {
+                    delay = backoff(attempt, delay);
+                    backoffSleep(endpoint, delay);
                     continue;
                 }
                 if (e instanceof RuntimeException) throw (RuntimeException) e;
                 throw new Sec4DevException(e.getMessage(), 0, null);
             }
+            long elapsed = System.nanoTime() - start;
+            endpoint.latency.record(elapsed / 1000);
+            if (breaker != null) breaker.record(permit, resp.statusCode() >= 500, elapsed);
+            if (limiter != null) limiter.onComplete(elapsed, overloaded(resp.statusCode()));
+            if (instrumented) {
+                metrics.onAttempt(endpoint.path, attempt, resp.statusCode(), elapsed, bytesOut(req), resp.body().length);
+            }
+            delay = retryDelay(resp, attempt, delay, onRateLimit);
+            if (delay < 0) return resp.body();
+            if (delay > 0) backoffSleep(endpoint, delay);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #post}. Requests are sent with
+     * {@code sendAsync} and retries are scheduled on a timer instead of
+     * sleeping, so no thread is held while a request or backoff is pending.
+     * Cancelling the returned future stops any further attempts.
+     */
+    CompletableFuture<byte[]> postAsync(Endpoint endpoint, String value, RateLimitCallback onRateLimit) {
+        long start = instrumented ? System.nanoTime() : 0;
+        HttpRequest req = encode(endpoint, value);
+        CompletableFuture<byte[]> f = hedging != null
+                ? hedged(endpoint, req, onRateLimit) : new Call(endpoint, req, onRateLimit).start();
+        if (instrumented) {
+            f.whenComplete((body, err) -> metrics.onCall(endpoint.path, err == null, System.nanoTime() - start));
         }
+        return f;
+    }
+
+    private HttpRequest encode(Endpoint endpoint, String value) {
+        if (!instrumented) return endpoint.request(value);
+        long start = System.nanoTime();
+        HttpRequest req = endpoint.request(value);
+        metrics.onEncode(endpoint.path, System.nanoTime() - start);
+        return req;
+    }
+
+    /** Runs a response decoder, timing it when metrics are enabled. */
+    <T> T decode(Endpoint endpoint, byte[] body, Function<byte[], T> decoder) {
+        if (!instrumented) return decoder.apply(body);
+        long start = System.nanoTime();
+        T result = decoder.apply(body);
+        metrics.onDecode(endpoint.path, System.nanoTime() - start);
+        return result;
+    }
+
+    void cacheLookup(Endpoint endpoint, boolean hit) {
+        if (instrumented) metrics.onCacheLookup(endpoint.path, hit);
+    }
+
+    private void backoffSleep(Endpoint endpoint, long delayMs) {
+        if (instrumented) metrics.onBackoff(endpoint.path, delayMs);
+        sleep(delayMs);
+    }
+
+    private static long bytesOut(HttpRequest req) {
+        return req.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+    }
+
+    /**
+     * Sends the request and, if it has not completed after the hedging delay and the
+     * budget allows, an identical second one. The first success wins and the other
+     * is cancelled; the call fails only when both have failed.
+     */
+    private CompletableFuture<byte[]> hedged(Endpoint endpoint, HttpRequest req, RateLimitCallback onRateLimit) {
+        hedgeBudget.deposit();
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        CompletableFuture<byte[]> primary = new Call(endpoint, req, onRateLimit).start();
+        AtomicReference<CompletableFuture<byte[]>> hedge = new AtomicReference<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        BiConsumer<byte[], Throwable> onDone = (body, err) -> {
+            if (err == null) result.complete(body);
+            else if (pending.decrementAndGet() == 0) result.completeExceptionally(unwrap(err));
+        };
+        primary.whenComplete(onDone);
+        CompletableFuture.delayedExecutor(hedgeDelay(endpoint), TimeUnit.MILLISECONDS).execute(() -> {
+            if (primary.isDone() || result.isDone() || !hedgeBudget.tryWithdraw()) return;
+            pending.incrementAndGet();
+            hedges.increment();
+            CompletableFuture<byte[]> second = new Call(endpoint, req, onRateLimit).start();
+            hedge.set(second);
+            second.whenComplete(onDone);
+            if (result.isDone()) second.cancel(true);
+        });
+        result.whenComplete((body, err) -> {
+            primary.cancel(true);
+            CompletableFuture<byte[]> second = hedge.get();
+            if (second != null) second.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * The hedging delay from the endpoint's latency percentile. Computing a percentile walks
+     * every histogram bucket, so it is redone only every {@code HEDGE_RECOMPUTE_EVERY} samples.
+     */
+    private long hedgeDelay(Endpoint endpoint) {
+        long n = endpoint.latency.samples();
+        if (n < HEDGE_MIN_SAMPLES) return hedging.getMaxDelayMs();
+        long delay = endpoint.hedgeDelayMs;
+        if (delay >= 0 && n - endpoint.hedgeDelaySamples < HEDGE_RECOMPUTE_EVERY) return delay;
+        long p = endpoint.latency.percentile(hedging.getPercentile()) / 1000;
+        delay = Math.max(hedging.getMinDelayMs(), Math.min(hedging.getMaxDelayMs(), p));
+        endpoint.hedgeDelaySamples = n;
+        endpoint.hedgeDelayMs = delay;
+        return delay;
+    }
+
+    /** 429 and 5xx mean the API is past its capacity; the limiter backs off on them. */
+    private static boolean overloaded(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    /** Current adaptive concurrency limit; 0 when none is configured. */
+    int concurrencyLimit() {
+        return limiter != null ? limiter.limit() : 0;
+    }
+
+    long concurrencyRejectedCount() {
+        return limiter != null ? limiter.rejectedCount() : 0;
+    }
+
+    long hedgeCount() {
+        return hedges.sum();
+    }
+
+    /** One logical request and its retries on the async path. */
+    private final class Call {
+        private final Endpoint endpoint;
+        private final HttpRequest req;
+        private final RateLimitCallback onRateLimit;
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private volatile long prevDelay;
+
+        Call(Endpoint endpoint, HttpRequest req, RateLimitCallback onRateLimit) {
+            this.endpoint = endpoint;
+            this.req = req;
+            this.onRateLimit = onRateLimit;
+        }
+
+        CompletableFuture<byte[]> start() {
+            attempt(0);
+            return result;
+        }
+
+        private void attempt(int attempt) {
+            if (result.isDone()) return;
+            if (pacer != null) {
+                long wait;
+                try {
+                    wait = pacer.reserve();
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                if (wait > 0) {
+                    CompletableFuture.delayedExecutor(wait, TimeUnit.MILLISECONDS).execute(() -> send(attempt));
+                    return;
+                }
+            }
+            send(attempt);
+        }
+
+        /** Takes a concurrency slot, waiting for one without holding a thread, then sends. */
+        private void send(int attempt) {
+            if (result.isDone()) return;
+            if (limiter == null || limiter.tryAcquire()) {
+                dispatch(attempt);
+                return;
+            }
+            limiter.acquireAsync().whenComplete((v, err) -> {
+                if (err != null) result.completeExceptionally(unwrap(err));
+                else if (result.isDone()) limiter.release();
+                else dispatch(attempt);
+            });
+        }
+
+        private void dispatch(int attempt) {
+            CircuitBreaker breaker = endpoint.breaker;
+            long permit;
+            try {
+                permit = breaker != null ? breaker.acquire() : 0;
+            } catch (CircuitOpenException e) {
+                if (limiter != null) limiter.release();
+                result.completeExceptionally(e);
+                return;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<byte[]>> pendingSend =
+                    transport.client().sendAsync(req, HttpResponse.BodyHandlers.ofByteArray());
+            result.whenComplete((body, err) -> {
+                if (result.isCancelled()) pendingSend.cancel(true);
+            });
+            pendingSend.whenComplete((resp, err) -> {
+                long delay;
+                long elapsed = System.nanoTime() - start;
+                if (breaker != null) {
+                    if (pendingSend.isCancelled()) breaker.release(permit);
+                    else breaker.record(permit, err != null || resp.statusCode() >= 500, elapsed);
+                }
+                if (limiter != null) {
+                    if (pendingSend.isCancelled()) limiter.release();
+                    else limiter.onComplete(elapsed, err != null || overloaded(resp.statusCode()));
+                }
+                // A losing hedge, or a call the caller cancelled: nothing to record or retry.
+                if (pendingSend.isCancelled() || result.isDone()) return;
+                if (instrumented) {
+                    metrics.onAttempt(endpoint.path, attempt, err == null ? resp.statusCode() : 0, elapsed,
+                            bytesOut(req), err == null ? resp.body().length : 0);
+                }
+                if (err != null) {
+                    Throwable cause = unwrap(err);
+                    if (attempt >= retries || !allowRetry()) {
+                        result.completeExceptionally(cause instanceof Sec4DevException
+                                ? cause : new Sec4DevException(cause.getMessage(), 0, null));
+                        return;
+                    }
+                    delay = backoff(attempt, prevDelay);
+                } else {
+                    endpoint.latency.record(elapsed / 1000);
+                    try {
+                        delay = retryDelay(resp, attempt, prevDelay, onRateLimit);
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
+                        return;
+                    }
+                    if (delay < 0) {
+                        result.complete(resp.body());
+                        return;
+                    }
+                }
+                prevDelay = delay;
+                if (delay == 0) {
+                    attempt(attempt + 1);
+                    return;
+                }
+                if (instrumented) metrics.onBackoff(endpoint.path, delay);
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> attempt(attempt + 1));
+            });
+        }
+    }
+
+    static <T> T await(CompletableFuture<T> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new Sec4DevException("Interrupted", 0, null);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new Sec4DevException(cause.getMessage(), 0, null);
+        }
+    }
 
-        if (lastException != null && lastResp != null) {
-            throw exceptionFrom(lastStatus, lastBody, lastResp);
+    static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
         }
-        throw lastException != null ? lastException : new Sec4DevException("Request failed after retries", 0, null);
+        return t;
     }
 
     interface RateLimitCallback {
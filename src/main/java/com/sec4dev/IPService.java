@@ -1,33 +1,223 @@
 package com.sec4dev;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sec4dev.models.*;
 
-import java.util.Map;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /** IP check service. */
 public final class IPService {
 
+    private static final String PATH = "/ip/check";
+
     private final com.sec4dev.HttpClient http;
     private final com.sec4dev.HttpClient.RateLimitCallback onRateLimit;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final Endpoint endpoint;
+    private final ResultCache<CompactIpResult> cache;
+    private final StringDictionary strings;
+    private final MappedCache<IPCheckResult> diskCache;
+    private final DiskCacheConfig diskConfig;
+    private final SingleFlight<IPCheckResult> singleFlight;
+    private final int bulkConcurrency;
+    private final Function<String, IPCheckResult> fallback;
+    private final long snapshotMaxAgeMs;
+    private final LongAdder snapshotHits = new LongAdder();
+    private volatile IpSnapshot snapshot;
 
-    IPService(com.sec4dev.HttpClient http, com.sec4dev.HttpClient.RateLimitCallback onRateLimit) {
+    IPService(com.sec4dev.HttpClient http, com.sec4dev.HttpClient.RateLimitCallback onRateLimit,
+              ResultCache<CompactIpResult> cache, StringDictionary strings,
+              MappedCache<IPCheckResult> diskCache, DiskCacheConfig diskConfig,
+              SingleFlight<IPCheckResult> singleFlight,
+              int bulkConcurrency, Function<String, IPCheckResult> fallback,
+              IpSnapshot snapshot, long snapshotMaxAgeMs) {
         this.http = http;
+        this.endpoint = http.endpoint(PATH, "ip");
         this.onRateLimit = onRateLimit;
+        this.cache = cache;
+        this.strings = strings;
+        this.diskCache = diskCache;
+        this.diskConfig = diskConfig;
+        this.singleFlight = singleFlight;
+        this.bulkConcurrency = bulkConcurrency;
+        this.fallback = fallback;
+        this.snapshot = snapshot;
+        this.snapshotMaxAgeMs = snapshotMaxAgeMs;
     }
 
     /** Classify an IP address. */
     public IPCheckResult check(String ip) {
-        Validation.validateIp(ip);
-        String path = "/ip/check";
-        Map<String, String> body = Map.of("ip", ip.trim());
-        byte[] out = http.post(path, body, onRateLimit);
+        String key = Validation.normalizeIp(ip);
+        IPCheckResult local = fromSnapshot(key);
+        if (local != null) return local;
+        IPCheckResult cached = cached(key);
+        if (cached != null) return cached;
+        if (singleFlight == null) return fetch(key);
+        return singleFlight.execute(PATH, key, () -> fetch(key));
+    }
+
+    /**
+     * Classify an IP address without blocking the calling thread.
+     * The future completes exceptionally with a {@link Sec4DevException}
+     * (including {@link ValidationException} for invalid input).
+     */
+    public CompletableFuture<IPCheckResult> checkAsync(String ip) {
+        String key;
+        try {
+            key = Validation.normalizeIp(ip);
+        } catch (ValidationException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        IPCheckResult local = fromSnapshot(key);
+        if (local != null) return CompletableFuture.completedFuture(local);
+        IPCheckResult cached = cached(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        if (singleFlight == null) return fetchAsync(key);
+        return singleFlight.executeAsync(PATH, key, () -> fetchAsync(key));
+    }
+
+    /** Answers from the offline snapshot when it covers the address and is not older than the max age. */
+    private IPCheckResult fromSnapshot(String key) {
+        IpSnapshot s = snapshot;
+        if (s == null) return null;
+        if (snapshotMaxAgeMs > 0 && s.getCreatedAt().toEpochMilli() + snapshotMaxAgeMs < System.currentTimeMillis()) {
+            return null;
+        }
+        IPCheckResult r = s.lookup(key);
+        if (r != null) snapshotHits.increment();
+        return r;
+    }
+
+    /**
+     * Looks up the memory cache, then the disk cache, copying disk hits into memory.
+     * The memory cache holds results in compact form.
+     */
+    private IPCheckResult cached(String key) {
+        if (cache == null && diskCache == null) return null;
+        CompactIpResult compact = cache == null ? null
+                : cache.refreshAhead() ? cache.get(key, () -> refresh(key)) : cache.get(key);
+        IPCheckResult hit = compact != null ? compact.toResult(strings) : null;
+        if (hit == null && diskCache != null) {
+            hit = diskCache.get(key);
+            if (hit != null && cache != null) cache.put(key, CompactIpResult.of(hit, strings));
+        }
+        http.cacheLookup(endpoint, hit != null);
+        return hit;
+    }
+
+    /** Re-fetches a result in the background while the cache keeps serving the old one. */
+    private void refresh(String key) {
+        CompletableFuture<IPCheckResult> f;
         try {
-            return mapper.readValue(out, IPCheckResult.class);
-        } catch (Exception e) {
-            throw new Sec4DevException("Failed to parse response: " + e.getMessage(), 0, null);
+            f = singleFlight == null ? fetchAsync(key) : singleFlight.executeAsync(PATH, key, () -> fetchAsync(key));
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
         }
+        f.whenComplete((r, err) -> cache.refreshed(key));
+    }
+
+    private void store(String key, IPCheckResult result) {
+        if (cache != null) cache.put(key, CompactIpResult.of(result, strings));
+        if (diskCache != null) diskCache.put(key, result, diskConfig.getTtlMs());
+    }
+
+    /**
+     * Replace the offline snapshot, e.g. after downloading a newer one; null disables it.
+     * Lookups in progress finish against the previous snapshot.
+     */
+    public void updateSnapshot(IpSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /** Number of checks answered from the offline snapshot without a request. */
+    public long getSnapshotHits() {
+        return snapshotHits.sum();
+    }
+
+    private IPCheckResult fetch(String key) {
+        byte[] out;
+        try {
+            out = http.post(endpoint, key, onRateLimit);
+        } catch (CircuitOpenException e) {
+            if (fallback == null) throw e;
+            return fallback.apply(key);
+        }
+        IPCheckResult result = http.decode(endpoint, out, JsonCodec::decodeIp);
+        store(key, result);
+        return result;
+    }
+
+    private CompletableFuture<IPCheckResult> fetchAsync(String key) {
+        CompletableFuture<IPCheckResult> f = http.postAsync(endpoint, key, onRateLimit).thenApply(out -> {
+            IPCheckResult result = http.decode(endpoint, out, JsonCodec::decodeIp);
+            store(key, result);
+            return result;
+        });
+        return fallback == null ? f : f.handle((result, err) -> {
+            if (err == null) return result;
+            Throwable cause = com.sec4dev.HttpClient.unwrap(err);
+            if (cause instanceof CircuitOpenException) return fallback.apply(key);
+            throw err instanceof CompletionException ? (CompletionException) err : new CompletionException(err);
+        });
+    }
+
+    /**
+     * Check many IP addresses at once. Duplicate inputs are checked once, up to
+     * {@code bulkConcurrency} requests are in flight over the shared connection pool,
+     * and per-input failures are reported in {@link BatchResult#getErrors()}.
+     */
+    public BatchResult<IPCheckResult> checkAll(Collection<String> ips) {
+        return BulkExecutor.await(checkAllAsync(ips));
+    }
+
+    /** Non-blocking variant of {@link #checkAll}. */
+    public CompletableFuture<BatchResult<IPCheckResult>> checkAllAsync(Collection<String> ips) {
+        return BulkExecutor.run(ips, bulkConcurrency, this::checkAsync);
+    }
+
+    /**
+     * A Reactive Streams stage that checks IP addresses from upstream with {@link #checkAsync}
+     * and publishes the results. Upstream demand follows downstream demand, is capped at
+     * {@code bulkConcurrency} inputs in flight, and is released at the paced rate when
+     * rate-limit pacing is on, so no thread blocks on a response. Results arrive in completion
+     * order; a failed check cancels upstream and is signalled with {@code onError}.
+     * Each processor accepts one subscriber.
+     */
+    public Flow.Processor<String, IPCheckResult> processor() {
+        return processor(bulkConcurrency);
+    }
+
+    /** Like {@link #processor()} with at most {@code concurrency} checks in flight. */
+    public Flow.Processor<String, IPCheckResult> processor(int concurrency) {
+        return new CheckProcessor<>(this::checkAsync, http, concurrency);
+    }
+
+    /** State of this endpoint's circuit breaker; always {@code CLOSED} when none is configured. */
+    public CircuitState getCircuitState() {
+        return endpoint.breaker != null ? endpoint.breaker.state() : CircuitState.CLOSED;
+    }
+
+    /** Requests failed fast (or answered by the fallback) because the circuit was open. */
+    public long getCircuitRejectedCount() {
+        return endpoint.breaker != null ? endpoint.breaker.rejectedCount() : 0;
+    }
+
+    /** Counters for the on-disk IP cache; all zero when it is disabled. */
+    public CacheStats getDiskCacheStats() {
+        return diskCache != null ? diskCache.stats() : new CacheStats(0, 0, 0, 0);
+    }
+
+    /** Number of lookups that shared an identical in-flight request instead of sending their own. */
+    public long getCoalescedCount() {
+        return singleFlight != null ? singleFlight.coalescedCount() : 0;
+    }
+
+    /** Counters for the IP result cache; all zero when caching is disabled. */
+    public CacheStats getCacheStats() {
+        return cache != null ? cache.stats() : new CacheStats(0, 0, 0, 0);
     }
 
     public boolean isHosting(String ip) {
@@ -0,0 +1,207 @@
+package com.sec4dev;
+
+/**
+ * Parser for IPv4 and IPv6 address literals. Unlike {@code InetAddress.getByName}
+ * it never consults the resolver, does not throw on invalid input and does not
+ * allocate for valid IPv4 input.
+ *
+ * <p>Accepted forms: dotted-quad IPv4 (no leading zeros), RFC 4291 IPv6 with
+ * {@code ::} compression and an optional embedded IPv4 tail, an optional
+ * {@code %zone} suffix and an optional pair of enclosing brackets on IPv6.
+ */
+final class IpLiteral {
+
+    private static final long V4_MAPPED_PREFIX = 0x0000_ffffL << 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private IpLiteral() {}
+
+    /**
+     * Returns the canonical form of {@code s}, or null if it is not an IP literal.
+     * IPv4 stays dotted-quad; IPv4-mapped IPv6 collapses to its IPv4 address; other
+     * IPv6 uses the RFC 5952 compact lowercase form, with any zone ID kept as-is.
+     */
+    static String canonical(String s) {
+        long[] addr = new long[2];
+        int version = parse(s, addr);
+        if (version == 4) return s;
+        if (version != 6) return null;
+        int end = isBracketed(s) ? s.length() - 1 : s.length();
+        int pct = s.indexOf('%');
+        return format(addr[0], addr[1], pct >= 0 ? s.substring(pct + 1, end) : null);
+    }
+
+    /**
+     * Parses {@code s} into a 128-bit address ({@code out[0]} high bits, {@code out[1]}
+     * low bits). IPv4 addresses are stored in IPv4-mapped form. Returns 4 for dotted-quad
+     * input, 6 for IPv6 input, or 0 if {@code s} is not a valid literal.
+     */
+    static int parse(String s, long[] out) {
+        if (s == null || s.isEmpty()) return 0;
+        if (s.indexOf(':') < 0) {
+            long v4 = parseV4(s, 0, s.length());
+            if (v4 < 0) return 0;
+            out[0] = 0;
+            out[1] = V4_MAPPED_PREFIX | v4;
+            return 4;
+        }
+        int start = 0;
+        int end = s.length();
+        if (isBracketed(s)) {
+            start++;
+            end--;
+        }
+        int pct = s.indexOf('%', start);
+        if (pct >= 0 && pct < end) {
+            if (pct == end - 1) return 0;
+            for (int i = pct + 1; i < end; i++) {
+                char c = s.charAt(i);
+                if (c <= ' ' || c == '%' || c == '[' || c == ']' || c == '/') return 0;
+            }
+            end = pct;
+        }
+        if (start >= end) return 0;
+        return parseV6(s, start, end, out) ? 6 : 0;
+    }
+
+    private static boolean isBracketed(String s) {
+        return s.length() >= 2 && s.charAt(0) == '[' && s.charAt(s.length() - 1) == ']';
+    }
+
+    /** Parses a dotted-quad IPv4 address in {@code [start, end)}; returns -1 if invalid. */
+    private static long parseV4(String s, int start, int end) {
+        int parts = 0;
+        long value = 0;
+        int i = start;
+        while (true) {
+            int octet = 0;
+            int digits = 0;
+            char first = i < end ? s.charAt(i) : 0;
+            while (i < end && digits < 4) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') break;
+                octet = octet * 10 + (c - '0');
+                digits++;
+                i++;
+            }
+            if (digits == 0 || digits > 3 || octet > 255 || (digits > 1 && first == '0')) return -1;
+            value = (value << 8) | octet;
+            parts++;
+            if (i == end) return parts == 4 ? value : -1;
+            if (s.charAt(i) != '.' || parts == 4) return -1;
+            i++;
+        }
+    }
+
+    private static boolean parseV6(String s, int start, int end, long[] out) {
+        int[] g = new int[8];
+        int n = 0;
+        int gap = -1;
+        int i = start;
+        if (s.charAt(i) == ':') {
+            if (i + 1 >= end || s.charAt(i + 1) != ':') return false;
+            gap = 0;
+            i += 2;
+        }
+        while (i < end) {
+            if (n == 8) return false;
+            int j = i;
+            int value = 0;
+            while (j < end && j - i < 5) {
+                int d = hexDigit(s.charAt(j));
+                if (d < 0) break;
+                value = (value << 4) | d;
+                j++;
+            }
+            if (j < end && s.charAt(j) == '.') {
+                if (n > 6) return false;
+                long v4 = parseV4(s, i, end);
+                if (v4 < 0) return false;
+                g[n++] = (int) (v4 >>> 16);
+                g[n++] = (int) (v4 & 0xffff);
+                break;
+            }
+            if (j == i || j - i > 4) return false;
+            g[n++] = value;
+            i = j;
+            if (i == end) break;
+            if (s.charAt(i) != ':') return false;
+            i++;
+            if (i == end) return false;
+            if (s.charAt(i) == ':') {
+                if (gap >= 0) return false;
+                gap = n;
+                i++;
+            }
+        }
+        if (gap < 0 ? n != 8 : n > 7) return false;
+        long hi = 0;
+        long lo = 0;
+        int shift = gap < 0 ? 0 : 8 - n;
+        for (int k = 0; k < n; k++) {
+            int pos = gap >= 0 && k >= gap ? k + shift : k;
+            if (pos < 4) hi |= (long) g[k] << (48 - 16 * pos);
+            else lo |= (long) g[k] << (48 - 16 * (pos - 4));
+        }
+        out[0] = hi;
+        out[1] = lo;
+        return true;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    /** Formats a 128-bit address, collapsing IPv4-mapped addresses to dotted-quad. */
+    static String format(long hi, long lo, String zone) {
+        if (hi == 0 && (lo >>> 32) == 0x0000_ffffL) {
+            return formatV4((int) lo);
+        }
+        int bestStart = -1;
+        int bestLen = 1;
+        for (int k = 0; k < 8; ) {
+            if (group(hi, lo, k) != 0) {
+                k++;
+                continue;
+            }
+            int runStart = k;
+            while (k < 8 && group(hi, lo, k) == 0) k++;
+            if (k - runStart > bestLen) {
+                bestStart = runStart;
+                bestLen = k - runStart;
+            }
+        }
+        char[] buf = new char[40];
+        int len = 0;
+        for (int k = 0; k < 8; k++) {
+            if (k == bestStart) {
+                buf[len++] = ':';
+                buf[len++] = ':';
+                k += bestLen - 1;
+                continue;
+            }
+            if (len > 0 && buf[len - 1] != ':') buf[len++] = ':';
+            int g = group(hi, lo, k);
+            boolean started = false;
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                int d = (g >>> shift) & 0xf;
+                if (d == 0 && !started && shift > 0) continue;
+                started = true;
+                buf[len++] = HEX[d];
+            }
+        }
+        String text = new String(buf, 0, len);
+        return zone != null ? text + '%' + zone : text;
+    }
+
+    private static int group(long hi, long lo, int k) {
+        return (int) ((k < 4 ? hi : lo) >>> (48 - 16 * (k & 3))) & 0xffff;
+    }
+
+    static String formatV4(int v4) {
+        return ((v4 >>> 24) & 0xff) + "." + ((v4 >>> 16) & 0xff) + "." + ((v4 >>> 8) & 0xff) + "." + (v4 & 0xff);
+    }
+}
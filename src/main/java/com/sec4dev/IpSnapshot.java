@@ -0,0 +1,124 @@
+package com.sec4dev;
+
+import com.sec4dev.models.IPCheckResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline IP intelligence: CIDR ranges mapped to IP check results, answered
+ * locally by longest-prefix match. A snapshot is JSON Lines, one range per
+ * line in the API response shape plus a {@code cidr} field, e.g.
+ * {@code {"cidr":"3.0.0.0/9","classification":"hosting","network":{"asn":16509}}}.
+ * IPv4 and IPv6 ranges may be mixed; a more specific range wins.
+ *
+ * <p>Immutable once loaded and safe to share between threads and clients.
+ */
+public final class IpSnapshot {
+
+    private final PrefixTrie trie;
+    private final CompactIpResult[] results;
+    private final StringDictionary strings;
+    private final Instant createdAt;
+
+    private IpSnapshot(PrefixTrie trie, CompactIpResult[] results, StringDictionary strings, Instant createdAt) {
+        this.trie = trie;
+        this.results = results;
+        this.strings = strings;
+        this.createdAt = createdAt;
+    }
+
+    public static IpSnapshot load(Path path) throws IOException {
+        return load(path, Files.getLastModifiedTime(path).toInstant());
+    }
+
+    public static IpSnapshot load(Path path, Instant createdAt) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return load(in, createdAt);
+        }
+    }
+
+    /**
+     * Reads a snapshot from a stream. {@code createdAt} is when the data was produced;
+     * it is what the client compares against its maximum snapshot age.
+     * Throws {@link ValidationException} naming the line if a range is malformed.
+     */
+    public static IpSnapshot load(InputStream in, Instant createdAt) throws IOException {
+        PrefixTrie trie = new PrefixTrie();
+        List<CompactIpResult> results = new ArrayList<>();
+        StringDictionary strings = new StringDictionary();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String[] cidr = new String[1];
+        long[] addr = new long[2];
+        int lineNo = 0;
+        for (String line; (line = reader.readLine()) != null; ) {
+            lineNo++;
+            if (line.isEmpty() || line.trim().isEmpty()) continue;
+            cidr[0] = null;
+            IPCheckResult r;
+            try {
+                r = JsonCodec.decodeIp(line.getBytes(StandardCharsets.UTF_8), cidr);
+            } catch (Sec4DevException e) {
+                throw new ValidationException("Invalid snapshot line " + lineNo + ": " + e.getMessage(), 422, null);
+            }
+            int len = parseCidr(cidr[0], addr);
+            if (len < 0) {
+                throw new ValidationException("Invalid CIDR on snapshot line " + lineNo + ": " + cidr[0], 422, null);
+            }
+            trie.insert(addr[0], addr[1], len, results.size());
+            results.add(CompactIpResult.of(r, strings));
+        }
+        trie.freeze();
+        return new IpSnapshot(trie, results.toArray(new CompactIpResult[0]), strings, createdAt);
+    }
+
+    /** Returns the result for the most specific range containing {@code ip}, or null. */
+    public IPCheckResult lookup(String ip) {
+        long[] addr = new long[2];
+        if (IpLiteral.parse(ip, addr) == 0) return null;
+        int i = trie.lookup(addr[0], addr[1]);
+        if (i < 0) return null;
+        return results[i].toResult(ip, strings);
+    }
+
+    /** Number of ranges in the snapshot. */
+    public int size() {
+        return results.length;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /** Parses {@code addr/len} into {@code out}; returns the prefix length in the 128-bit space, or -1. */
+    private static int parseCidr(String cidr, long[] out) {
+        if (cidr == null) return -1;
+        int slash = cidr.indexOf('/');
+        String host = slash >= 0 ? cidr.substring(0, slash) : cidr;
+        if (host.indexOf('%') >= 0) return -1;
+        int version = IpLiteral.parse(host, out);
+        if (version == 0) return -1;
+        int max = version == 4 ? 32 : 128;
+        int len = max;
+        if (slash >= 0) {
+            String bits = cidr.substring(slash + 1);
+            if (bits.isEmpty() || bits.length() > 3) return -1;
+            len = 0;
+            for (int i = 0; i < bits.length(); i++) {
+                char c = bits.charAt(i);
+                if (c < '0' || c > '9') return -1;
+                len = len * 10 + (c - '0');
+            }
+            if (len > max) return -1;
+        }
+        return version == 4 ? 96 + len : len;
+    }
+}
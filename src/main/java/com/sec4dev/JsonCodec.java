@@ -0,0 +1,226 @@
+package com.sec4dev;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sec4dev.models.EmailCheckResult;
+import com.sec4dev.models.IPCheckResult;
+import com.sec4dev.models.IPGeo;
+import com.sec4dev.models.IPNetwork;
+import com.sec4dev.models.IPSignals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Shared JSON configuration and streaming decoders for API responses.
+ * Responses are read token by token straight into the model classes, with
+ * no intermediate tree or Map; unknown fields are skipped.
+ */
+final class JsonCodec {
+
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private JsonCodec() {}
+
+    static IPCheckResult decodeIp(byte[] body) {
+        return decodeIp(body, null);
+    }
+
+    /**
+     * Decodes an IP result. When {@code cidr} is non-null, a {@code cidr} field is also
+     * read into {@code cidr[0]}; snapshot lines use the response shape plus that field.
+     */
+    static IPCheckResult decodeIp(byte[] body, String[] cidr) {
+        try (JsonParser p = FACTORY.createParser(body)) {
+            expectObject(p);
+            String ip = null;
+            String classification = null;
+            double confidence = 0;
+            IPSignals signals = null;
+            IPNetwork network = null;
+            IPGeo geo = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                switch (name) {
+                    case "ip": ip = p.getValueAsString(); break;
+                    case "classification": classification = p.getValueAsString(); break;
+                    case "confidence": confidence = p.getValueAsDouble(); break;
+                    case "signals": signals = t == JsonToken.START_OBJECT ? readSignals(p) : skip(p); break;
+                    case "network": network = t == JsonToken.START_OBJECT ? readNetwork(p) : skip(p); break;
+                    case "geo": geo = t == JsonToken.START_OBJECT ? readGeo(p) : skip(p); break;
+                    case "cidr":
+                        if (cidr != null) cidr[0] = p.getValueAsString();
+                        break;
+                    default: p.skipChildren();
+                }
+            }
+            return new IPCheckResult(ip, classification, confidence, signals, network, geo);
+        } catch (IOException e) {
+            throw new Sec4DevException("Failed to parse response: " + e.getMessage(), 0, null);
+        }
+    }
+
+    /** Decodes an email result; a missing {@code email} field falls back to the address that was checked. */
+    static EmailCheckResult decodeEmail(byte[] body, String email) {
+        try (JsonParser p = FACTORY.createParser(body)) {
+            expectObject(p);
+            String e = email;
+            String domain = "";
+            boolean disposable = false;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                switch (name) {
+                    case "email": e = p.getValueAsString(); break;
+                    case "domain": domain = p.getValueAsString(); break;
+                    case "is_disposable": disposable = t == JsonToken.VALUE_TRUE; break;
+                    default: p.skipChildren();
+                }
+            }
+            return new EmailCheckResult(e, domain, disposable);
+        } catch (IOException e) {
+            throw new Sec4DevException("Failed to parse response: " + e.getMessage(), 0, null);
+        }
+    }
+
+    /**
+     * Reads a top-level string field from a JSON object, stopping as soon as it is found.
+     * Returns null if the field is missing or not a scalar; throws if the record is not an object.
+     */
+    static String readField(byte[] record, String field) {
+        try (JsonParser p = FACTORY.createParser(record)) {
+            expectObject(p);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                if (name.equals(field)) return t.isScalarValue() ? p.getValueAsString() : null;
+                p.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            throw new Sec4DevException("Invalid JSON record: " + e.getMessage(), 0, null);
+        }
+    }
+
+    /** Encodes an IP result in the API response shape. */
+    static byte[] encodeIp(IPCheckResult r) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator g = FACTORY.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeStringField("ip", r.getIp());
+            g.writeStringField("classification", r.getClassification());
+            g.writeNumberField("confidence", r.getConfidence());
+            g.writeObjectFieldStart("signals");
+            g.writeBooleanField("is_hosting", r.getSignals().isHosting());
+            g.writeBooleanField("is_residential", r.getSignals().isResidential());
+            g.writeBooleanField("is_mobile", r.getSignals().isMobile());
+            g.writeBooleanField("is_vpn", r.getSignals().isVpn());
+            g.writeBooleanField("is_tor", r.getSignals().isTor());
+            g.writeBooleanField("is_proxy", r.getSignals().isProxy());
+            g.writeEndObject();
+            g.writeObjectFieldStart("network");
+            if (r.getNetwork().getAsn() != null) g.writeNumberField("asn", r.getNetwork().getAsn());
+            else g.writeNullField("asn");
+            g.writeStringField("org", r.getNetwork().getOrg());
+            g.writeStringField("provider", r.getNetwork().getProvider());
+            g.writeEndObject();
+            g.writeObjectFieldStart("geo");
+            g.writeStringField("country", r.getGeo().getCountry());
+            g.writeStringField("region", r.getGeo().getRegion());
+            g.writeEndObject();
+            g.writeEndObject();
+        } catch (IOException e) {
+            throw new Sec4DevException("Failed to encode result: " + e.getMessage(), 0, null);
+        }
+        return out.toByteArray();
+    }
+
+    /** Encodes a string as a quoted JSON string. */
+    static byte[] encodeString(String s) {
+        try {
+            return MAPPER.writeValueAsBytes(s);
+        } catch (IOException e) {
+            throw new Sec4DevException("Failed to encode string: " + e.getMessage(), 0, null);
+        }
+    }
+
+    /** Parses an error body once; returns the JSON object as a Map, or null if it is not one. */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> decodeError(byte[] body) {
+        if (body == null || body.length == 0) return null;
+        try {
+            return MAPPER.readValue(body, Map.class);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void expectObject(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+    }
+
+    private static <T> T skip(JsonParser p) throws IOException {
+        p.skipChildren();
+        return null;
+    }
+
+    private static IPSignals readSignals(JsonParser p) throws IOException {
+        boolean hosting = false, residential = false, mobile = false, vpn = false, tor = false, proxy = false;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            p.nextToken();
+            switch (name) {
+                case "is_hosting": hosting = p.getValueAsBoolean(); break;
+                case "is_residential": residential = p.getValueAsBoolean(); break;
+                case "is_mobile": mobile = p.getValueAsBoolean(); break;
+                case "is_vpn": vpn = p.getValueAsBoolean(); break;
+                case "is_tor": tor = p.getValueAsBoolean(); break;
+                case "is_proxy": proxy = p.getValueAsBoolean(); break;
+                default: p.skipChildren();
+            }
+        }
+        return new IPSignals(hosting, residential, mobile, vpn, tor, proxy);
+    }
+
+    private static IPNetwork readNetwork(JsonParser p) throws IOException {
+        Integer asn = null;
+        String org = null;
+        String provider = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            switch (name) {
+                case "asn": asn = t == JsonToken.VALUE_NULL ? null : p.getValueAsInt(); break;
+                case "org": org = p.getValueAsString(); break;
+                case "provider": provider = p.getValueAsString(); break;
+                default: p.skipChildren();
+            }
+        }
+        return new IPNetwork(asn, org, provider);
+    }
+
+    private static IPGeo readGeo(JsonParser p) throws IOException {
+        String country = null;
+        String region = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            p.nextToken();
+            switch (name) {
+                case "country": country = p.getValueAsString(); break;
+                case "region": region = p.getValueAsString(); break;
+                default: p.skipChildren();
+            }
+        }
+        return new IPGeo(country, region);
+    }
+}
@@ -0,0 +1,92 @@
+package com.sec4dev;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of latencies in microseconds. Each power of
+ * two is split into 8 linear sub-buckets, so recorded values keep a relative
+ * precision of about 12.5% (HDR-style) in a fixed 4 KB of counters.
+ *
+ * <p>With a non-zero {@code decayEvery}, all counts are halved every that many
+ * samples so percentiles follow recent traffic.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final long decayEvery;
+
+    LatencyHistogram(long decayEvery) {
+        this.decayEvery = decayEvery;
+    }
+
+    void record(long micros) {
+        counts.incrementAndGet(indexOf(Math.max(0, micros)));
+        long n = total.incrementAndGet();
+        if (decayEvery > 0 && n % decayEvery == 0) decay();
+    }
+
+    /** Values recorded since creation, unaffected by decay; a single read. */
+    long samples() {
+        return total.get();
+    }
+
+    long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+        return n;
+    }
+
+    /** Returns the upper bound of the bucket holding the given percentile (0-1), or 0 if empty. */
+    long percentile(double p) {
+        long n = count();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    long max() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) return upperBound(i);
+        }
+        return 0;
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+    }
+
+    private void decay() {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c;
+            do {
+                c = counts.get(i);
+            } while (c > 0 && !counts.compareAndSet(i, c, c >>> 1));
+        }
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exp = index / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + sub) << (exp - SUB_BITS);
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+}
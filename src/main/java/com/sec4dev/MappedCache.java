@@ -0,0 +1,267 @@
+package com.sec4dev;
+
+import com.sec4dev.models.CacheStats;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TTL cache in a memory-mapped file, laid out as a fixed-size open-addressing
+ * table so it is usable as soon as it is mapped and can be shared by several
+ * processes. Each slot is guarded by a sequence lock: writers make the
+ * sequence odd while they copy, readers retry if it changed under them.
+ * A locked sequence carries the writer's process id, so a slot left locked
+ * by a process that died mid-copy can be taken over by the next writer.
+ * Expiry uses wall-clock time so it holds across restarts.
+ */
+final class MappedCache<V> {
+
+    /** Fixed binary form of a cached value. */
+    interface Codec<V> {
+        /** Writes the value; may throw {@link BufferOverflowException} if it does not fit a slot. */
+        void encode(V value, ByteBuffer out);
+
+        V decode(String key, ByteBuffer in);
+    }
+
+    private static final int MAGIC = 0x53344443; // "S4DC"
+    private static final int VERSION = 3;
+    static final int HEADER = 64;
+    static final int SLOT = 512;
+    private static final int PROBES = 8;
+    private static final int READ_TRIES = 8;
+    private static final int LOCK_SPINS = 64;
+    private static final long COUNTER = 0xffff_ffffL;
+    private static final long OWNER = ProcessHandle.current().pid() << 32;
+
+    // slot layout: seq, key hash (0 = never used), expiry, key length, value length, key, value.
+    // seq: low 32 bits count writes and are odd while locked; high 32 bits hold the
+    // locking process id while locked and are 0 otherwise.
+    private static final int SEQ = 0;
+    private static final int HASH = 8;
+    private static final int EXPIRES = 16;
+    private static final int KEY_LEN = 24;
+    private static final int VAL_LEN = 26;
+    private static final int DATA = 28;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final MappedByteBuffer buf;
+    private final int slots;
+    private final Codec<V> codec;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    MappedCache(Path path, int maxEntries, Codec<V> codec) throws IOException {
+        this.codec = codec;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = ch.lock();
+            try {
+                int n = maxEntries;
+                if (ch.size() >= HEADER) {
+                    ByteBuffer h = ByteBuffer.allocate(16).order(ByteOrder.nativeOrder());
+                    ch.read(h, 0);
+                    h.flip();
+                    if (h.getInt() != MAGIC || h.getInt() != VERSION || h.getInt(12) != SLOT) {
+                        throw new IllegalArgumentException(path + " is not a compatible sec4dev cache file");
+                    }
+                    n = h.getInt(8);
+                }
+                long size = HEADER + (long) n * SLOT;
+                this.buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                this.buf.order(ByteOrder.nativeOrder());
+                if (buf.getInt(0) != MAGIC) {
+                    buf.putInt(4, VERSION);
+                    buf.putInt(8, n);
+                    buf.putInt(12, SLOT);
+                    buf.putInt(0, MAGIC);
+                    buf.force();
+                }
+                this.slots = n;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /** Returns the cached value, or null if absent or expired. */
+    V get(String key) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        long h = hash(k);
+        int start = (int) Long.remainderUnsigned(h, slots);
+        for (int p = 0; p < PROBES; p++) {
+            int base = HEADER + ((start + p) % slots) * SLOT;
+            for (int t = 0; t < READ_TRIES; t++) {
+                long s1 = (long) LONGS.getAcquire(buf, base + SEQ);
+                if ((s1 & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                long slotHash = buf.getLong(base + HASH);
+                if (slotHash == 0) {
+                    misses.increment();
+                    return null;
+                }
+                if (slotHash != h) break;
+                long expiresAt = buf.getLong(base + EXPIRES);
+                int keyLen = buf.getShort(base + KEY_LEN);
+                int valLen = buf.getShort(base + VAL_LEN);
+                if (keyLen != k.length || valLen < 0 || DATA + keyLen + valLen > SLOT) break;
+                byte[] data = new byte[keyLen + valLen];
+                ByteBuffer src = buf.duplicate();
+                src.position(base + DATA);
+                src.get(data);
+                VarHandle.acquireFence();
+                if ((long) LONGS.getVolatile(buf, base + SEQ) != s1) continue;
+                if (!Arrays.equals(data, 0, keyLen, k, 0, keyLen)) break;
+                if (expiresAt <= System.currentTimeMillis()) {
+                    misses.increment();
+                    return null;
+                }
+                V value;
+                try {
+                    value = codec.decode(key, ByteBuffer.wrap(data, keyLen, valLen));
+                } catch (RuntimeException e) {
+                    break;
+                }
+                hits.increment();
+                return value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores the value in the first probed slot holding the same key, an unused or
+     * expired slot, or else the one closest to expiry. Values too large for a slot
+     * are not stored; neither are writes to a slot another writer holds.
+     */
+    void put(String key, V value, long ttlMs) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        if (DATA + k.length > SLOT) return;
+        ByteBuffer val = ByteBuffer.allocate(SLOT - DATA - k.length);
+        try {
+            codec.encode(value, val);
+        } catch (BufferOverflowException e) {
+            return;
+        }
+        val.flip();
+        long h = hash(k);
+        long now = System.currentTimeMillis();
+        int start = (int) Long.remainderUnsigned(h, slots);
+        int target = -1;
+        boolean evict = false;
+        long oldest = Long.MAX_VALUE;
+        for (int p = 0; p < PROBES; p++) {
+            int base = HEADER + ((start + p) % slots) * SLOT;
+            long slotHash = buf.getLong(base + HASH);
+            long expiresAt = buf.getLong(base + EXPIRES);
+            if (slotHash == 0 || expiresAt <= now || (slotHash == h && sameKey(base, k))) {
+                target = base;
+                evict = false;
+                break;
+            }
+            if (expiresAt < oldest) {
+                oldest = expiresAt;
+                target = base;
+                evict = true;
+            }
+        }
+        long seq = lock(target);
+        if (seq < 0) return;
+        buf.putLong(target + HASH, h);
+        buf.putLong(target + EXPIRES, now + ttlMs);
+        buf.putShort(target + KEY_LEN, (short) k.length);
+        buf.putShort(target + VAL_LEN, (short) val.remaining());
+        ByteBuffer dst = buf.duplicate();
+        dst.position(target + DATA);
+        dst.put(k).put(val);
+        if (unlock(target, seq) && evict) evictions.increment();
+    }
+
+    /**
+     * Makes the slot's sequence odd and stamps it with this process id; returns the locked
+     * value, or -1 if the slot stayed busy. A lock whose owner process is gone belonged to a
+     * writer that died mid-copy and is taken over. Locks held by live processes, including
+     * paused ones, are never taken.
+     */
+    long lock(int base) {
+        for (int i = 0; i < LOCK_SPINS; i++) {
+            long seq = (long) LONGS.getVolatile(buf, base + SEQ);
+            if ((seq & 1) == 0 && LONGS.compareAndSet(buf, base + SEQ, seq, OWNER | ((seq + 1) & COUNTER))) {
+                VarHandle.storeStoreFence();
+                return OWNER | ((seq + 1) & COUNTER);
+            }
+            Thread.onSpinWait();
+        }
+        long seq = (long) LONGS.getVolatile(buf, base + SEQ);
+        long owner = seq >>> 32;
+        if ((seq & 1) == 0 || owner == OWNER >>> 32 || ProcessHandle.of(owner).map(ProcessHandle::isAlive).orElse(false)) {
+            return -1;
+        }
+        long locked = OWNER | ((seq + 2) & COUNTER);
+        if (!LONGS.compareAndSet(buf, base + SEQ, seq, locked)) return -1;
+        VarHandle.storeStoreFence();
+        return locked;
+    }
+
+    /**
+     * Publishes the slot if {@code locked} still holds it. Returns false, leaving the slot
+     * alone, when the lock was taken over in the meantime.
+     */
+    boolean unlock(int base, long locked) {
+        return LONGS.compareAndSet(buf, base + SEQ, locked, (locked + 1) & COUNTER);
+    }
+
+    private boolean sameKey(int base, byte[] k) {
+        if (buf.getShort(base + KEY_LEN) != k.length) return false;
+        for (int i = 0; i < k.length; i++) {
+            if (buf.get(base + DATA + i) != k[i]) return false;
+        }
+        return true;
+    }
+
+    /** FNV-1a with a final mix; never 0, which marks an unused slot. */
+    private static long hash(byte[] k) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : k) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /** Unexpired entries; scans the whole table. */
+    int size() {
+        long now = System.currentTimeMillis();
+        int n = 0;
+        for (int i = 0; i < slots; i++) {
+            int base = HEADER + i * SLOT;
+            if (buf.getLong(base + HASH) != 0 && buf.getLong(base + EXPIRES) > now) n++;
+        }
+        return n;
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+}
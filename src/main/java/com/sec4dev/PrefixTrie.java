@@ -0,0 +1,218 @@
+package com.sec4dev;
+
+import java.util.Arrays;
+
+/**
+ * Path-compressed binary (Patricia) trie over 128-bit keys for longest-prefix
+ * match. IPv4 prefixes are stored in IPv4-mapped form, so one trie holds both
+ * families. Nodes live in a single {@code long[]} indexed by node id: a lookup
+ * is a handful of array reads and 64-bit compares, with no allocation.
+ *
+ * <p>Not thread-safe while building; safe for concurrent lookups once
+ * {@link #freeze()} has been called and the trie is published.
+ */
+final class PrefixTrie {
+
+    private static final int NONE = -1;
+    // Each node is four longs, so one visit touches a single cache line:
+    // key high bits, key low bits, left/right child ids, prefix length/value.
+    private static final int STRIDE = 4;
+    private static final long V4_MAPPED = 0xffffL << 32;
+    private static final int V4_TABLE_BITS = 16;
+
+    private long[] nodes = new long[16 * STRIDE];
+    private int size;
+    private int root = NONE;
+    private boolean hasV4;
+    // For IPv4-mapped keys: indexed by the top 16 bits of the IPv4 address, the node to
+    // resume the walk at and the best value found above it. Skips the first ~16 levels.
+    private int[] v4Start;
+    private int[] v4Best;
+
+    /** Maps {@code hi:lo/len} to {@code v}, replacing any value already stored for that exact prefix. */
+    void insert(long hi, long lo, int len, int v) {
+        hi &= maskHi(len);
+        lo &= maskLo(len);
+        if (len >= 96 && hi == 0 && (lo & 0xffff_ffff_0000_0000L) == V4_MAPPED) hasV4 = true;
+        if (root == NONE) {
+            root = node(hi, lo, len, v);
+            return;
+        }
+        int parent = NONE;
+        boolean parentRight = false;
+        int n = root;
+        while (true) {
+            int nodeLen = length(n);
+            long nodeHi = nodes[n * STRIDE];
+            long nodeLo = nodes[n * STRIDE + 1];
+            int common = commonPrefix(hi, lo, nodeHi, nodeLo, Math.min(len, nodeLen));
+            if (common < nodeLen) {
+                int mid = node(hi & maskHi(common), lo & maskLo(common), common, NONE);
+                setChild(mid, bit(nodeHi, nodeLo, common) != 0, n);
+                if (common == len) {
+                    setValue(mid, v);
+                } else {
+                    setChild(mid, bit(hi, lo, common) != 0, node(hi, lo, len, v));
+                }
+                if (parent == NONE) root = mid;
+                else setChild(parent, parentRight, mid);
+                return;
+            }
+            if (len == nodeLen) {
+                setValue(n, v);
+                return;
+            }
+            boolean goRight = bit(hi, lo, nodeLen) != 0;
+            int child = child(n, goRight);
+            if (child == NONE) {
+                setChild(n, goRight, node(hi, lo, len, v));
+                return;
+            }
+            parent = n;
+            parentRight = goRight;
+            n = child;
+        }
+    }
+
+    /** Returns the value of the longest prefix containing {@code hi:lo}, or -1. */
+    int lookup(long hi, long lo) {
+        long[] nodes = this.nodes;
+        int best = NONE;
+        int n = root;
+        if (v4Start != null && hi == 0 && (lo & 0xffff_ffff_0000_0000L) == V4_MAPPED) {
+            int k = (int) (lo >>> (32 - V4_TABLE_BITS)) & ((1 << V4_TABLE_BITS) - 1);
+            n = v4Start[k];
+            best = v4Best[k];
+        }
+        while (n != NONE) {
+            int base = n * STRIDE;
+            long meta = nodes[base + 3];
+            int len = (int) (meta >>> 32);
+            if (((hi ^ nodes[base]) & maskHi(len)) != 0 || ((lo ^ nodes[base + 1]) & maskLo(len)) != 0) break;
+            if ((int) meta != NONE) best = (int) meta;
+            if (len == 128) break;
+            long children = nodes[base + 2];
+            n = bit(hi, lo, len) == 0 ? (int) (children >> 32) : (int) children;
+        }
+        return best;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Trims the node array and renumbers nodes in breadth-first order, so the top
+     * levels that every lookup walks through sit together in a few cache lines.
+     */
+    void freeze() {
+        if (root == NONE) {
+            nodes = new long[0];
+            return;
+        }
+        long[] out = new long[size * STRIDE];
+        int[] order = new int[size];
+        int head = 0;
+        int tail = 0;
+        order[tail++] = root;
+        while (head < tail) {
+            int n = order[head];
+            int left = child(n, false);
+            int right = child(n, true);
+            long leftId = left == NONE ? NONE : tail;
+            if (left != NONE) order[tail++] = left;
+            long rightId = right == NONE ? NONE : tail;
+            if (right != NONE) order[tail++] = right;
+            int from = n * STRIDE;
+            int to = head * STRIDE;
+            out[to] = nodes[from];
+            out[to + 1] = nodes[from + 1];
+            out[to + 2] = (leftId << 32) | (rightId & 0xffff_ffffL);
+            out[to + 3] = nodes[from + 3];
+            head++;
+        }
+        nodes = out;
+        root = 0;
+        if (hasV4) buildV4Table();
+    }
+
+    private void buildV4Table() {
+        int entries = 1 << V4_TABLE_BITS;
+        int maxLen = 96 + V4_TABLE_BITS;
+        v4Start = new int[entries];
+        v4Best = new int[entries];
+        for (int k = 0; k < entries; k++) {
+            long lo = V4_MAPPED | ((long) k << (32 - V4_TABLE_BITS));
+            int best = NONE;
+            int n = root;
+            while (n != NONE) {
+                int base = n * STRIDE;
+                int len = length(n);
+                // The next branch bit of a node at 16 bits or deeper is not part of the
+                // table index, so the lookup has to resume at this node.
+                if (len >= maxLen) break;
+                if ((nodes[base] & maskHi(len)) != 0 || ((lo ^ nodes[base + 1]) & maskLo(len)) != 0) {
+                    n = NONE;
+                    break;
+                }
+                int v = (int) nodes[base + 3];
+                if (v != NONE) best = v;
+                n = child(n, bit(0, lo, len) != 0);
+            }
+            v4Start[k] = n;
+            v4Best[k] = best;
+        }
+    }
+
+    private int length(int n) {
+        return (int) (nodes[n * STRIDE + 3] >>> 32);
+    }
+
+    private int child(int n, boolean right) {
+        long children = nodes[n * STRIDE + 2];
+        return right ? (int) children : (int) (children >> 32);
+    }
+
+    private void setChild(int n, boolean right, int child) {
+        long children = nodes[n * STRIDE + 2];
+        nodes[n * STRIDE + 2] = right
+                ? (children & 0xffff_ffff_0000_0000L) | (child & 0xffff_ffffL)
+                : ((long) child << 32) | (children & 0xffff_ffffL);
+    }
+
+    private void setValue(int n, int v) {
+        long meta = nodes[n * STRIDE + 3];
+        nodes[n * STRIDE + 3] = (meta & 0xffff_ffff_0000_0000L) | (v & 0xffff_ffffL);
+    }
+
+    private int node(long hi, long lo, int len, int v) {
+        if ((size + 1) * STRIDE > nodes.length) nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        int base = size * STRIDE;
+        nodes[base] = hi;
+        nodes[base + 1] = lo;
+        nodes[base + 2] = ((long) NONE << 32) | (NONE & 0xffff_ffffL);
+        nodes[base + 3] = ((long) len << 32) | (v & 0xffff_ffffL);
+        return size++;
+    }
+    static long maskHi(int len) {
+        if (len <= 0) return 0;
+        return len >= 64 ? -1L : -1L << (64 - len);
+    }
+
+    static long maskLo(int len) {
+        if (len <= 64) return 0;
+        return -1L << (128 - len);
+    }
+
+    private static int bit(long hi, long lo, int pos) {
+        return pos < 64 ? (int) (hi >>> (63 - pos)) & 1 : (int) (lo >>> (127 - pos)) & 1;
+    }
+
+    private static int commonPrefix(long aHi, long aLo, long bHi, long bLo, int max) {
+        long x = aHi ^ bHi;
+        if (x != 0) return Math.min(max, Long.numberOfLeadingZeros(x));
+        x = aLo ^ bLo;
+        if (x != 0) return Math.min(max, 64 + Long.numberOfLeadingZeros(x));
+        return max;
+    }
+}
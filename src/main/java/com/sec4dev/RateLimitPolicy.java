@@ -0,0 +1,9 @@
+package com.sec4dev;
+
+/** What the client-side rate limiter does with a request that cannot be sent yet. */
+public enum RateLimitPolicy {
+    /** Wait for the next free send slot, up to the configured maximum wait. */
+    QUEUE,
+    /** Throw {@link RateLimitException} immediately instead of waiting. */
+    FAIL_FAST
+}
@@ -0,0 +1,15 @@
+package com.sec4dev;
+
+/** Record formats understood by {@link EnrichmentPipeline}. */
+public enum RecordFormat {
+    /**
+     * One JSON object per line. The key is a top-level field; the result is added
+     * to the object as {@code "sec4dev"}, or {@code "sec4dev_error"} on failure.
+     */
+    NDJSON,
+    /**
+     * Comma-separated values with a header row naming the key column. Result
+     * columns prefixed {@code sec4dev_} are appended to each row.
+     */
+    CSV
+}
@@ -0,0 +1,80 @@
+package com.sec4dev;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Splits a channel into newline-terminated records, reading fixed-size chunks
+ * and copying out only the bytes of each record. Records are left as UTF-8
+ * bytes; a newline byte never occurs inside a multi-byte sequence. With
+ * {@code quoted}, newlines inside double quotes (CSV) do not end a record.
+ */
+final class RecordReader {
+
+    static final int CHUNK = 64 * 1024;
+    static final int MAX_RECORD = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    private final boolean quoted;
+    private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK);
+    private byte[] partial = new byte[256];
+    private int partialLen;
+    private boolean inQuotes;
+    private boolean eof;
+    private long records;
+
+    RecordReader(ReadableByteChannel channel, boolean quoted) {
+        this.channel = channel;
+        this.quoted = quoted;
+        chunk.flip();
+    }
+
+    /** Returns the next record without its line terminator, or null at end of input. */
+    byte[] next() throws IOException {
+        while (true) {
+            byte[] a = chunk.array();
+            int start = chunk.position();
+            int end = chunk.limit();
+            for (int i = start; i < end; i++) {
+                byte b = a[i];
+                if (quoted && b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    append(a, start, i - start);
+                    chunk.position(i + 1);
+                    return take();
+                }
+            }
+            append(a, start, end - start);
+            if (eof) {
+                return partialLen > 0 ? take() : null;
+            }
+            chunk.clear();
+            eof = channel.read(chunk) < 0;
+            chunk.flip();
+        }
+    }
+
+    private void append(byte[] a, int off, int len) throws IOException {
+        if (partialLen + len > MAX_RECORD) {
+            throw new IOException("Record " + (records + 1) + " is longer than " + MAX_RECORD + " bytes");
+        }
+        if (partialLen + len > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLen + len));
+        }
+        System.arraycopy(a, off, partial, partialLen, len);
+        partialLen += len;
+    }
+
+    private byte[] take() {
+        int len = partialLen;
+        if (len > 0 && partial[len - 1] == '\r') len--;
+        byte[] r = Arrays.copyOf(partial, len);
+        partialLen = 0;
+        inQuotes = false;
+        records++;
+        return r;
+    }
+}
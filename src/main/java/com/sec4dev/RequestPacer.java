@@ -0,0 +1,78 @@
+package com.sec4dev;
+
+import com.sec4dev.models.RateLimitInfo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Proactive client-side rate limiter driven by the X-RateLimit headers.
+ * The remaining budget is spread evenly until the reset time: each request
+ * reserves the next send slot with a CAS on a single timestamp (a GCRA-style
+ * token bucket), so threads never block each other while reserving.
+ */
+final class RequestPacer {
+
+    private final long maxWaitNanos;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+    private volatile long intervalNanos;
+    private volatile RateLimitInfo last = new RateLimitInfo(0, 0, 0);
+
+    RequestPacer(RateLimitPolicy policy, long maxWaitMs) {
+        this.maxWaitNanos = policy == RateLimitPolicy.FAIL_FAST ? 0 : TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+    }
+
+    /**
+     * Reserves a send slot and returns how long to wait before sending, in ms.
+     * Throws {@link RateLimitException} if the wait exceeds what the policy allows.
+     */
+    long reserve() {
+        for (;;) {
+            long now = System.nanoTime();
+            long slot = nextSlot.get();
+            long start = slot - now > 0 ? slot : now;
+            long wait = start - now;
+            if (wait > maxWaitNanos) {
+                RateLimitInfo info = last;
+                int retryAfter = (int) TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L);
+                throw new RateLimitException("Client-side rate limit: next request allowed in " + retryAfter + "s",
+                        0, null, retryAfter, info.getLimit(), info.getRemaining());
+            }
+            if (nextSlot.compareAndSet(slot, start + intervalNanos)) {
+                return TimeUnit.NANOSECONDS.toMillis(wait + 999_999);
+            }
+        }
+    }
+
+    /** How long, in ms, until the next send slot is free; 0 if one is free now. Reserves nothing. */
+    long delayMs() {
+        long wait = nextSlot.get() - System.nanoTime();
+        return wait > 0 ? TimeUnit.NANOSECONDS.toMillis(wait + 999_999) : 0;
+    }
+
+    /** Re-paces from the headers of a response. Responses without headers are ignored. */
+    void update(RateLimitInfo info) {
+        if (info.getLimit() <= 0) return;
+        last = info;
+        long resetNanos = TimeUnit.SECONDS.toNanos(Math.max(1, info.getResetSeconds()));
+        if (info.getRemaining() > 0) {
+            intervalNanos = resetNanos / info.getRemaining();
+        } else {
+            intervalNanos = resetNanos / Math.max(1, info.getLimit());
+            pushBack(resetNanos);
+        }
+    }
+
+    /** Holds all requests back after a 429 until the server's Retry-After has passed. */
+    void onRateLimited(int retryAfterSeconds) {
+        pushBack(TimeUnit.SECONDS.toNanos(Math.max(1, retryAfterSeconds)));
+    }
+
+    private void pushBack(long delayNanos) {
+        long until = System.nanoTime() + delayNanos;
+        for (;;) {
+            long slot = nextSlot.get();
+            if (slot - until >= 0 || nextSlot.compareAndSet(slot, until)) return;
+        }
+    }
+}
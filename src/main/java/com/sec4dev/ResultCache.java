@@ -0,0 +1,185 @@
+package com.sec4dev;
+
+import com.sec4dev.models.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded TTL cache with LRU eviction. Entries are spread over independently
+ * locked segments so concurrent lookups of different keys rarely contend.
+ * With refresh-ahead on, entries past their (jittered) refresh time are still
+ * served, and the first lookup to see one is asked to refresh it.
+ */
+final class ResultCache<V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_ENTRIES_PER_SEGMENT = 64;
+
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final long refreshNanos;
+    private final double refreshJitter;
+    private final Segment<V>[] segments;
+    private final LongSupplier nanoClock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ResultCache(CacheConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    /** Uses {@code nanoClock} in place of {@link System#nanoTime()}, so tests can move time. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ResultCache(CacheConfig config, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(config.getTtlMs());
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(config.getNegativeTtlMs());
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(config.getRefreshAfterMs());
+        this.refreshJitter = config.getRefreshJitter();
+        int maxEntries = config.getMaxEntries();
+        int count = 1;
+        while (count < MAX_SEGMENTS && maxEntries / (count * 2) >= MIN_ENTRIES_PER_SEGMENT) count *= 2;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            int capacity = maxEntries / count + (i < maxEntries % count ? 1 : 0);
+            segments[i] = new Segment<>(capacity, evictions);
+        }
+    }
+
+    private Segment<V> segmentFor(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return segments[h & (segments.length - 1)];
+    }
+
+    /** Returns the cached value, or null if absent or expired. */
+    V get(String key) {
+        return get(key, null);
+    }
+
+    /**
+     * Like {@link #get(String)}, but when the entry is due for refresh the first caller to see it
+     * also runs {@code refresh} (outside the lock). No other caller is asked until the entry is
+     * replaced or {@link #refreshed} is called.
+     */
+    V get(String key, Runnable refresh) {
+        Segment<V> seg = segmentFor(key);
+        long now = nanoClock.getAsLong();
+        V value;
+        boolean due = false;
+        synchronized (seg) {
+            CacheEntry<V> e = seg.get(key);
+            if (e != null && now - e.expiresAt >= 0) {
+                seg.remove(key);
+                e = null;
+            }
+            if (e != null && refresh != null && !e.refreshing && now - e.refreshAt >= 0) {
+                e.refreshing = true;
+                due = true;
+            }
+            value = e != null ? e.value : null;
+        }
+        if (value != null) hits.increment();
+        else misses.increment();
+        if (due) refresh.run();
+        return value;
+    }
+
+    /** True when entries are refreshed ahead of expiry. */
+    boolean refreshAhead() {
+        return refreshNanos > 0;
+    }
+
+    /**
+     * Ends a refresh started by {@link #get(String, Runnable)}. A successful refresh has already
+     * replaced the entry; after a failure the stale entry is offered for refresh again.
+     */
+    void refreshed(String key) {
+        Segment<V> seg = segmentFor(key);
+        synchronized (seg) {
+            CacheEntry<V> e = seg.get(key);
+            if (e != null) e.refreshing = false;
+        }
+    }
+
+    void put(String key, V value) {
+        put(key, value, false);
+    }
+
+    /** Stores a value using the negative TTL when {@code negative} is true. */
+    void put(String key, V value, boolean negative) {
+        Segment<V> seg = segmentFor(key);
+        long now = nanoClock.getAsLong();
+        long ttl = negative ? negativeTtlNanos : ttlNanos;
+        long refreshAt = now + ttl;
+        if (refreshNanos > 0 && refreshNanos < ttl) {
+            double jitter = refreshJitter > 0 ? ThreadLocalRandom.current().nextDouble(refreshJitter) : 0;
+            refreshAt = now + (long) (refreshNanos * (1 - jitter));
+        }
+        CacheEntry<V> e = new CacheEntry<>(value, now + ttl, refreshAt);
+        synchronized (seg) {
+            seg.put(key, e);
+        }
+    }
+
+    void clear() {
+        for (Segment<V> seg : segments) {
+            synchronized (seg) {
+                seg.clear();
+            }
+        }
+    }
+
+    int size() {
+        int n = 0;
+        for (Segment<V> seg : segments) {
+            synchronized (seg) {
+                n += seg.size();
+            }
+        }
+        return n;
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private static final class CacheEntry<V> {
+        final V value;
+        final long expiresAt;
+        final long refreshAt;
+        boolean refreshing;
+
+        CacheEntry(V value, long expiresAt, long refreshAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+    }
+
+    private static final class Segment<V> extends LinkedHashMap<String, CacheEntry<V>> {
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry<V>> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.sec4dev;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-wide limits on retries. Every successful request earns
+ * {@code budgetRatio} of a retry and every retry spends one, so during an
+ * outage the extra load stays a fixed share of recent traffic instead of
+ * multiplying it by the per-call retry count. Once the budget is spent,
+ * failed attempts are reported immediately.
+ */
+public final class RetryPolicy {
+
+    private final double budgetRatio;
+    private final int budgetBurst;
+    private final BackoffStrategy backoff;
+    private final long maxDelayMs;
+
+    private RetryPolicy(Builder b) {
+        if (b.budgetRatio <= 0 || b.budgetRatio > 1) {
+            throw new IllegalArgumentException("Retry budget ratio must be between 0 and 1");
+        }
+        if (b.budgetBurst <= 0) {
+            throw new IllegalArgumentException("Retry budget burst must be positive");
+        }
+        if (b.backoff == null) {
+            throw new IllegalArgumentException("Backoff strategy must not be null");
+        }
+        if (b.maxDelayMs <= 0) {
+            throw new IllegalArgumentException("Retry max delay must be positive");
+        }
+        this.budgetRatio = b.budgetRatio;
+        this.budgetBurst = b.budgetBurst;
+        this.backoff = b.backoff;
+        this.maxDelayMs = b.maxDelayMs;
+    }
+
+    /** Retries earned per successful request, e.g. 0.1 for at most 10% extra load. */
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    /** Retries available up front and the most that can be banked while healthy. */
+    public int getBudgetBurst() {
+        return budgetBurst;
+    }
+
+    public BackoffStrategy getBackoff() {
+        return backoff;
+    }
+
+    /**
+     * Longest delay before a retry. Backoff is capped here, and a 429 whose
+     * Retry-After is longer fails immediately instead of parking the caller.
+     */
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private double budgetRatio = 0.1;
+        private int budgetBurst = 10;
+        private BackoffStrategy backoff = BackoffStrategy.DECORRELATED_JITTER;
+        private long maxDelayMs = 20_000;
+
+        private Builder() {}
+
+        public Builder budgetRatio(double ratio) {
+            this.budgetRatio = ratio;
+            return this;
+        }
+
+        public Builder budgetBurst(int retries) {
+            this.budgetBurst = retries;
+            return this;
+        }
+
+        public Builder backoff(BackoffStrategy strategy) {
+            this.backoff = strategy;
+            return this;
+        }
+
+        public Builder maxDelay(long duration, TimeUnit unit) {
+            this.maxDelayMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -1,10 +1,19 @@
 package com.sec4dev;
 
+import com.sec4dev.models.EmailCheckResult;
+import com.sec4dev.models.IPCheckResult;
 import com.sec4dev.models.RateLimitInfo;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Main client for the Sec4Dev Security Checks API.
@@ -15,10 +24,15 @@ public final class Sec4DevClient {
     private static final long DEFAULT_TIMEOUT_MS = 30_000;
     private static final int DEFAULT_RETRIES = 3;
     private static final long DEFAULT_RETRY_DELAY_MS = 1_000;
+    private static final int DEFAULT_BULK_CONCURRENCY = 16;
+    private static final long DEFAULT_PACING_MAX_WAIT_MS = 30_000;
 
     private final com.sec4dev.HttpClient http;
+    private final Executor executor;
+    private final int bulkConcurrency;
     private final EmailService emailService;
     private final IPService ipService;
+    private final Stores stores;
     private volatile RateLimitInfo rateLimit = new RateLimitInfo(0, 0, 0);
 
     private Sec4DevClient(Builder b) {
@@ -28,27 +42,88 @@ public final class Sec4DevClient {
         }
         String baseUrl = b.baseUrl != null && !b.baseUrl.isEmpty() ? b.baseUrl.trim() : DEFAULT_BASE_URL;
         if (baseUrl.endsWith("/")) baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
-        HttpClient javaClient = null;
-        if (b.timeoutMs > 0) {
-            javaClient = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofSeconds(10))
-                    .build();
+        if (b.connections <= 0) {
+            throw new IllegalArgumentException("Transport connections must be positive");
+        }
+        this.executor = b.executor != null ? b.executor : VirtualThreads.executor();
+        this.bulkConcurrency = b.bulkConcurrency > 0 ? b.bulkConcurrency : DEFAULT_BULK_CONCURRENCY;
+        Sec4DevTransport transport = b.transport;
+        if (transport == null) {
+            Sec4DevTransport.Builder tb = Sec4DevTransport.builder().executor(b.executor);
+            if (b.httpVersion != null) tb.version(b.httpVersion);
+            transport = tb.connections(b.connections).build();
         }
         Duration readTimeout = b.timeoutMs > 0 ? Duration.ofMillis(b.timeoutMs) : null;
         this.http = new com.sec4dev.HttpClient(
                 baseUrl,
                 key,
-                javaClient,
+                transport,
                 b.retries >= 0 ? b.retries : DEFAULT_RETRIES,
                 b.retryDelayMs >= 0 ? b.retryDelayMs : DEFAULT_RETRY_DELAY_MS,
-                readTimeout
+                readTimeout,
+                b.pacingPolicy != null ? new RequestPacer(b.pacingPolicy, b.pacingMaxWaitMs) : null,
+                b.hedging,
+                b.circuitBreaker,
+                b.onCircuitStateChange,
+                b.retryPolicy,
+                b.metrics,
+                b.concurrencyLimit,
+                b.retryRateLimited
         );
         com.sec4dev.HttpClient.RateLimitCallback cb = info -> {
             this.rateLimit = info;
             if (b.onRateLimit != null) b.onRateLimit.onRateLimit(info);
         };
-        this.emailService = new EmailService(this.http, cb);
-        this.ipService = new IPService(this.http, cb);
+        Stores s = b.stores != null ? b.stores : new Stores(b);
+        this.stores = s;
+        this.emailService = new EmailService(this.http, cb,
+                s.emailCache, s.emailDomainCache, s.emailDiskCache, b.emailDiskCache, s.emailFlight,
+                bulkConcurrency,
+                b.emailFallback);
+        this.ipService = new IPService(this.http, cb,
+                s.ipCache, s.ipStrings, s.ipDiskCache, b.ipDiskCache, s.ipFlight,
+                bulkConcurrency,
+                b.ipFallback,
+                b.ipSnapshot,
+                b.ipSnapshotMaxAgeMs);
+    }
+
+    private static <V> MappedCache<V> mapped(DiskCacheConfig config, MappedCache.Codec<V> codec) {
+        if (config == null) return null;
+        try {
+            return new MappedCache<>(config.getPath(), config.getMaxEntries(), codec);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open disk cache " + config.getPath(), e);
+        }
+    }
+
+    /**
+     * The result caches, disk caches and in-flight call tables behind the services.
+     * {@link Sec4DevClientPool} hands one set to every key's client.
+     */
+    static final class Stores {
+        final ResultCache<CompactIpResult> ipCache;
+        final StringDictionary ipStrings = new StringDictionary();
+        final MappedCache<IPCheckResult> ipDiskCache;
+        final SingleFlight<IPCheckResult> ipFlight;
+        final ResultCache<EmailCheckResult> emailCache;
+        final ResultCache<EmailCheckResult> emailDomainCache;
+        final MappedCache<EmailCheckResult> emailDiskCache;
+        final SingleFlight<EmailCheckResult> emailFlight;
+
+        Stores(Builder b) {
+            this.ipCache = b.ipCache != null ? new ResultCache<>(b.ipCache) : null;
+            this.ipDiskCache = mapped(b.ipDiskCache, DiskCodecs.IP);
+            this.ipFlight = b.coalesceRequests ? new SingleFlight<>() : null;
+            this.emailCache = b.emailCache != null ? new ResultCache<>(b.emailCache) : null;
+            this.emailDomainCache = b.emailDomainCache != null ? new ResultCache<>(b.emailDomainCache) : null;
+            this.emailDiskCache = mapped(b.emailDiskCache, DiskCodecs.EMAIL);
+            this.emailFlight = b.coalesceRequests ? new SingleFlight<>() : null;
+        }
+    }
+
+    Stores stores() {
+        return stores;
     }
 
     public EmailService getEmail() {
@@ -59,6 +134,71 @@ public final class Sec4DevClient {
         return ipService;
     }
 
+    /**
+     * Run a blocking check for each distinct input concurrently and return the results in
+     * input order. Tasks run on the configured executor (virtual threads on JDK 21+), at
+     * most {@code bulkConcurrency} at a time. Unlike {@code checkAll}, the first failure
+     * cancels the remaining checks and is thrown, and the call returns only after every
+     * task has finished. Example: {@code client.fanOut(ips, client.getIp()::check)}.
+     */
+    public <T, R> Map<T, R> fanOut(Collection<T> inputs, Function<? super T, ? extends R> check) {
+        return FanOut.run(inputs, bulkConcurrency, fanOutExecutor(), 0, check);
+    }
+
+    /** Like {@link #fanOut(Collection, Function)}, cancelling everything if the deadline passes. */
+    public <T, R> Map<T, R> fanOut(Collection<T> inputs, Function<? super T, ? extends R> check,
+                                   long timeout, TimeUnit unit) {
+        return FanOut.run(inputs, bulkConcurrency, fanOutExecutor(), Math.max(1, unit.toMillis(timeout)), check);
+    }
+
+    /**
+     * Open the transport's connections and complete the TLS and HTTP/2 handshakes
+     * before the first lookup, so it does not pay for them. Any HTTP status counts as
+     * success; throws {@link Sec4DevException} if the host cannot be reached.
+     */
+    public void warmUp() {
+        com.sec4dev.HttpClient.await(warmUpAsync());
+    }
+
+    /** Non-blocking variant of {@link #warmUp()}. */
+    public CompletableFuture<Void> warmUpAsync() {
+        return http.warmUp();
+    }
+
+    private Executor fanOutExecutor() {
+        return executor != null ? executor : FanOut.defaultExecutor();
+    }
+
+    /** Total number of lookups served by sharing an in-flight request, across both services. */
+    public long getCoalescedRequests() {
+        return ipService.getCoalescedCount() + emailService.getCoalescedCount();
+    }
+
+    /** Number of hedge requests sent because the first attempt was slower than the hedging delay. */
+    public long getHedgedRequests() {
+        return http.hedgeCount();
+    }
+
+    /** True while the retry budget is spent and failed requests are reported without retrying. */
+    public boolean isRetryBudgetExhausted() {
+        return http.retryBudgetExhausted();
+    }
+
+    /** Number of retries skipped because the retry budget was spent. */
+    public long getRetriesDenied() {
+        return http.retriesDeniedCount();
+    }
+
+    /** Current adaptive limit on requests in flight; 0 when no concurrency limit is configured. */
+    public int getConcurrencyLimit() {
+        return http.concurrencyLimit();
+    }
+
+    /** Requests turned away, immediately or after waiting, because the concurrency limit was reached. */
+    public long getConcurrencyLimitRejections() {
+        return http.concurrencyRejectedCount();
+    }
+
     public RateLimitInfo getRateLimit() {
         return rateLimit;
     }
@@ -74,6 +214,31 @@ public final class Sec4DevClient {
         private int retries = DEFAULT_RETRIES;
         private long retryDelayMs = DEFAULT_RETRY_DELAY_MS;
         private RateLimitCallback onRateLimit;
+        private CacheConfig ipCache;
+        private CacheConfig emailCache;
+        private CacheConfig emailDomainCache;
+        private DiskCacheConfig ipDiskCache;
+        private DiskCacheConfig emailDiskCache;
+        private boolean coalesceRequests;
+        private int bulkConcurrency = DEFAULT_BULK_CONCURRENCY;
+        private RateLimitPolicy pacingPolicy;
+        private long pacingMaxWaitMs = DEFAULT_PACING_MAX_WAIT_MS;
+        private HedgingPolicy hedging;
+        private CircuitBreakerConfig circuitBreaker;
+        private CircuitBreakerListener onCircuitStateChange;
+        private Function<String, IPCheckResult> ipFallback;
+        private Function<String, EmailCheckResult> emailFallback;
+        private RetryPolicy retryPolicy;
+        private Sec4DevMetrics metrics;
+        private Executor executor;
+        private Sec4DevTransport transport;
+        private HttpClient.Version httpVersion;
+        private int connections = 1;
+        private IpSnapshot ipSnapshot;
+        private long ipSnapshotMaxAgeMs;
+        private boolean retryRateLimited = true;
+        private ConcurrencyLimitConfig concurrencyLimit;
+        private Stores stores;
 
         private Builder() {}
 
@@ -102,11 +267,221 @@ public final class Sec4DevClient {
             return this;
         }
 
+        /**
+         * Share a retry budget across all calls and choose the backoff strategy, so an
+         * outage does not multiply traffic by the per-call retry count. Without a policy
+         * each call retries up to {@link #retries(int)} times on its own.
+         */
+        public Builder retryPolicy(RetryPolicy policy) {
+            this.retryPolicy = policy;
+            return this;
+        }
+
+        /**
+         * Executor for HTTP client callbacks and {@link Sec4DevClient#fanOut}. Defaults to
+         * a virtual-thread-per-task executor on JDK 21+, and the JDK defaults before that.
+         * With {@link #transport}, only {@code fanOut} uses it.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Send requests over a transport shared with other clients. Overrides
+         * {@link #httpVersion}, {@link #connections} and the transport side of
+         * {@link #executor}. By default each client opens its own connections.
+         */
+        public Builder transport(Sec4DevTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /** Use an existing {@code java.net.http.HttpClient}, e.g. one with a proxy or custom SSL context. */
+        public Builder httpClient(HttpClient client) {
+            this.transport = Sec4DevTransport.of(client);
+            return this;
+        }
+
+        /** Preferred HTTP version (default: HTTP/2 with fallback to HTTP/1.1). */
+        public Builder httpVersion(HttpClient.Version version) {
+            this.httpVersion = version;
+            return this;
+        }
+
+        /** Spread requests over this many HTTP/2 connections instead of one (default: 1). */
+        public Builder connections(int connections) {
+            this.connections = connections;
+            return this;
+        }
+
         public Builder onRateLimit(RateLimitCallback callback) {
             this.onRateLimit = callback;
             return this;
         }
 
+        /** Cache IP check results in memory. Disabled by default. */
+        public Builder ipCache(CacheConfig config) {
+            this.ipCache = config;
+            return this;
+        }
+
+        /** Cache email check results in memory, keyed by address. Disabled by default. */
+        public Builder emailCache(CacheConfig config) {
+            this.emailCache = config;
+            return this;
+        }
+
+        /**
+         * Cache email results by domain (case-insensitive), so later addresses on a known
+         * domain are answered locally. Disposable answers use the TTL and non-disposable
+         * answers use the negative TTL. Disabled by default.
+         */
+        public Builder emailDomainCache(CacheConfig config) {
+            this.emailDomainCache = config;
+            return this;
+        }
+
+        /**
+         * Keep IP check results in a memory-mapped file behind the memory cache, so they
+         * survive restarts and can be shared with other processes using the same file.
+         * Disabled by default.
+         */
+        public Builder ipDiskCache(DiskCacheConfig config) {
+            this.ipDiskCache = config;
+            return this;
+        }
+
+        /**
+         * Keep email check results, keyed by normalized address, in a memory-mapped file
+         * behind the memory caches. Non-disposable answers use the negative TTL. Disabled by default.
+         */
+        public Builder emailDiskCache(DiskCacheConfig config) {
+            this.emailDiskCache = config;
+            return this;
+        }
+
+        /**
+         * Share one HTTP call between concurrent identical lookups. Callers that joined a call
+         * get its result or its exception. Off by default.
+         */
+        public Builder coalesceRequests(boolean coalesce) {
+            this.coalesceRequests = coalesce;
+            return this;
+        }
+
+        /** Maximum requests in flight for a single {@code checkAll} call (default: 16). */
+        public Builder bulkConcurrency(int concurrency) {
+            this.bulkConcurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Pace requests from the X-RateLimit headers so the remaining budget lasts until
+         * the reset time, instead of sending until a 429 arrives. Disabled by default.
+         */
+        public Builder rateLimitPacing(RateLimitPolicy policy) {
+            this.pacingPolicy = policy;
+            return this;
+        }
+
+        /** Like {@link #rateLimitPacing(RateLimitPolicy)}, with the longest a queued request may wait. */
+        public Builder rateLimitPacing(RateLimitPolicy policy, long maxWait, TimeUnit unit) {
+            this.pacingPolicy = policy;
+            this.pacingMaxWaitMs = unit.toMillis(maxWait);
+            return this;
+        }
+
+        /**
+         * Send a second, identical lookup when the first has not answered within the
+         * endpoint's recent latency percentile. Both lookups are read-only, so the first
+         * response wins and the other is cancelled. Disabled by default.
+         */
+        public Builder hedging(HedgingPolicy policy) {
+            this.hedging = policy;
+            return this;
+        }
+
+        /**
+         * Guard each endpoint with a circuit breaker. While open, lookups fail with
+         * {@link CircuitOpenException} without sending a request (or are answered by the
+         * fallback), and retries stop early. Disabled by default.
+         */
+        public Builder circuitBreaker(CircuitBreakerConfig config) {
+            this.circuitBreaker = config;
+            return this;
+        }
+
+        public Builder onCircuitStateChange(CircuitBreakerListener listener) {
+            this.onCircuitStateChange = listener;
+            return this;
+        }
+
+        /**
+         * Answer IP checks from an offline snapshot of CIDR ranges when it covers the
+         * address; other addresses go to the API. Replace it later with
+         * {@link IPService#updateSnapshot}. Disabled by default.
+         */
+        public Builder ipSnapshot(IpSnapshot snapshot) {
+            this.ipSnapshot = snapshot;
+            this.ipSnapshotMaxAgeMs = 0;
+            return this;
+        }
+
+        /** Like {@link #ipSnapshot(IpSnapshot)}, falling back to the API once the snapshot is older than {@code maxAge}. */
+        public Builder ipSnapshot(IpSnapshot snapshot, long maxAge, TimeUnit unit) {
+            this.ipSnapshot = snapshot;
+            this.ipSnapshotMaxAgeMs = unit.toMillis(maxAge);
+            return this;
+        }
+
+        /** Answer IP lookups with this function while the circuit is open. Results are not cached. */
+        public Builder ipFallback(Function<String, IPCheckResult> fallback) {
+            this.ipFallback = fallback;
+            return this;
+        }
+
+        /** Answer email lookups with this function while the circuit is open. Results are not cached. */
+        public Builder emailFallback(Function<String, EmailCheckResult> fallback) {
+            this.emailFallback = fallback;
+            return this;
+        }
+
+        /**
+         * Report latency, retries, status codes, bytes, cache lookups and serialization
+         * time per endpoint. Use {@link HistogramMetrics} for built-in histograms, or
+         * adapt to your own metrics system. Default: no-op.
+         */
+        public Builder metrics(Sec4DevMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Adapt the number of requests in flight to observed latency: grow while round
+         * trips stay flat, shrink as they rise or on 429/5xx. Requests over the limit wait
+         * or are rejected with {@link ConcurrencyLimitException}. Disabled by default.
+         */
+        public Builder concurrencyLimit(ConcurrencyLimitConfig config) {
+            this.concurrencyLimit = config;
+            return this;
+        }
+
+        /** Fail a 429 at once instead of retrying it; used by {@link Sec4DevClientPool} to switch keys. */
+        Builder retryRateLimited(boolean retry) {
+            this.retryRateLimited = retry;
+            return this;
+        }
+
+        /**
+         * Use another client's caches and in-flight call tables instead of creating them;
+         * used by {@link Sec4DevClientPool} so keys do not fetch the same result separately.
+         */
+        Builder stores(Stores stores) {
+            this.stores = stores;
+            return this;
+        }
+
         public Sec4DevClient build() {
             return new Sec4DevClient(this);
         }
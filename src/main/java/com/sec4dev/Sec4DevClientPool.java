@@ -0,0 +1,292 @@
+package com.sec4dev;
+
+import com.sec4dev.models.EmailCheckResult;
+import com.sec4dev.models.IPCheckResult;
+import com.sec4dev.models.RateLimitInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Spreads calls over several API keys. Each key has its own client and its
+ * own rate limit state; all keys share one transport. Every call goes to
+ * the available key with the most remaining quota, less the calls already
+ * in flight on it. A key that answers 429, or reports no remaining quota,
+ * is drained until its reset time, and the call moves to the next key
+ * instead of waiting. Keys that have not answered yet are preferred, so
+ * every key is tried before any is treated as busy. Caches and request
+ * coalescing configured through {@link Builder#client} are shared by all keys,
+ * so a result fetched with one key is served to calls on the others.
+ */
+public final class Sec4DevClientPool {
+
+    private static final int DEFAULT_BULK_CONCURRENCY_PER_KEY = 16;
+
+    private final Key[] keys;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final int bulkConcurrency;
+
+    private Sec4DevClientPool(Builder b) {
+        if (b.apiKeys.isEmpty()) {
+            throw new IllegalArgumentException("At least one API key is required");
+        }
+        Sec4DevTransport transport = b.transport != null ? b.transport : Sec4DevTransport.builder().build();
+        List<Key> list = new ArrayList<>();
+        for (String apiKey : b.apiKeys) {
+            Sec4DevClient.Builder cb = Sec4DevClient.builder();
+            if (b.configure != null) b.configure.accept(cb);
+            cb.apiKey(apiKey).transport(transport).retryRateLimited(false);
+            // Every key reads and fills the first key's caches and joins its in-flight calls.
+            if (!list.isEmpty()) cb.stores(list.get(0).client.stores());
+            list.add(new Key(apiKey, cb));
+        }
+        this.keys = list.toArray(new Key[0]);
+        this.bulkConcurrency = b.bulkConcurrency > 0
+                ? b.bulkConcurrency : DEFAULT_BULK_CONCURRENCY_PER_KEY * keys.length;
+    }
+
+    /** Runs a blocking call on the best key, moving to the next key if it is rate limited. */
+    public <T> T execute(Function<Sec4DevClient, T> call) {
+        RateLimitException last = null;
+        for (int attempt = 0; attempt < keys.length; attempt++) {
+            Key k = select();
+            if (k == null) throw allDrained(last);
+            k.inFlight.incrementAndGet();
+            try {
+                return call.apply(k.client);
+            } catch (RateLimitException e) {
+                k.onRateLimited(e);
+                last = e;
+            } finally {
+                k.inFlight.decrementAndGet();
+            }
+        }
+        throw last;
+    }
+
+    /** Non-blocking variant of {@link #execute}. */
+    public <T> CompletableFuture<T> executeAsync(Function<Sec4DevClient, CompletableFuture<T>> call) {
+        return attemptAsync(call, 0, null);
+    }
+
+    private <T> CompletableFuture<T> attemptAsync(Function<Sec4DevClient, CompletableFuture<T>> call,
+                                                  int attempt, RateLimitException last) {
+        Key k = select();
+        if (k == null) return CompletableFuture.failedFuture(allDrained(last));
+        k.inFlight.incrementAndGet();
+        CompletableFuture<T> f;
+        try {
+            f = call.apply(k.client);
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> out = new CompletableFuture<>();
+        f.whenComplete((r, e) -> {
+            k.inFlight.decrementAndGet();
+            if (e == null) {
+                out.complete(r);
+                return;
+            }
+            Throwable cause = HttpClient.unwrap(e);
+            if (!(cause instanceof RateLimitException)) {
+                out.completeExceptionally(cause);
+                return;
+            }
+            RateLimitException rl = (RateLimitException) cause;
+            k.onRateLimited(rl);
+            if (attempt + 1 >= keys.length) {
+                out.completeExceptionally(rl);
+                return;
+            }
+            attemptAsync(call, attempt + 1, rl).whenComplete((r2, e2) -> {
+                if (e2 == null) out.complete(r2);
+                else out.completeExceptionally(HttpClient.unwrap(e2));
+            });
+        });
+        return out;
+    }
+
+    public IPCheckResult checkIp(String ip) {
+        return execute(c -> c.getIp().check(ip));
+    }
+
+    public CompletableFuture<IPCheckResult> checkIpAsync(String ip) {
+        return executeAsync(c -> c.getIp().checkAsync(ip));
+    }
+
+    public EmailCheckResult checkEmail(String email) {
+        return execute(c -> c.getEmail().check(email));
+    }
+
+    public CompletableFuture<EmailCheckResult> checkEmailAsync(String email) {
+        return executeAsync(c -> c.getEmail().checkAsync(email));
+    }
+
+    /**
+     * Check many IP addresses across all keys. Up to {@code bulkConcurrency} requests
+     * are in flight (default: 16 per key); per-input failures are in {@link BatchResult#getErrors()}.
+     */
+    public BatchResult<IPCheckResult> checkAllIps(Collection<String> ips) {
+        return BulkExecutor.await(BulkExecutor.run(ips, bulkConcurrency, this::checkIpAsync));
+    }
+
+    /** Email counterpart of {@link #checkAllIps}. */
+    public BatchResult<EmailCheckResult> checkAllEmails(Collection<String> emails) {
+        return BulkExecutor.await(BulkExecutor.run(emails, bulkConcurrency, this::checkEmailAsync));
+    }
+
+    /** Last rate limit headers seen for {@code apiKey}. */
+    public RateLimitInfo getRateLimit(String apiKey) {
+        return key(apiKey).info;
+    }
+
+    /** The client bound to {@code apiKey}, for calls that should not be balanced. */
+    public Sec4DevClient getClient(String apiKey) {
+        return key(apiKey).client;
+    }
+
+    /** Number of keys not currently drained after a 429 or an exhausted quota. */
+    public int getAvailableKeyCount() {
+        long now = System.nanoTime();
+        int n = 0;
+        for (Key k : keys) {
+            if (k.available(now)) n++;
+        }
+        return n;
+    }
+
+    private Key key(String apiKey) {
+        String trimmed = apiKey == null ? null : apiKey.trim();
+        for (Key k : keys) {
+            if (k.apiKey.equals(trimmed)) return k;
+        }
+        throw new IllegalArgumentException("Unknown API key");
+    }
+
+    /** The available key with the highest score; ties rotate so unknown keys share the load. */
+    private Key select() {
+        long now = System.nanoTime();
+        int n = keys.length;
+        int start = Math.floorMod(cursor.getAndIncrement(), n);
+        Key best = null;
+        long bestScore = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            Key k = keys[(start + i) % n];
+            if (!k.available(now)) continue;
+            long score = k.score(now);
+            if (score > bestScore) {
+                best = k;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private RateLimitException allDrained(RateLimitException last) {
+        long now = System.nanoTime();
+        long wait = Long.MAX_VALUE;
+        for (Key k : keys) wait = Math.min(wait, k.drainedUntil - now);
+        int retryAfter = (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L));
+        return new RateLimitException("Every API key is rate limited; next available in " + retryAfter + "s",
+                last != null ? last.getStatusCode() : 0, null, retryAfter, 0, 0);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** One API key, its client and its quota as last reported. */
+    private static final class Key {
+        final String apiKey;
+        final Sec4DevClient client;
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile RateLimitInfo info = new RateLimitInfo(0, 0, 0);
+        // When info stops describing the current window, and until when the key is drained.
+        volatile long infoExpires;
+        volatile long drainedUntil;
+
+        Key(String apiKey, Sec4DevClient.Builder builder) {
+            this.apiKey = apiKey.trim();
+            this.client = builder.onRateLimit(this::update).build();
+        }
+
+        void update(RateLimitInfo rl) {
+            if (rl.getLimit() <= 0) return;
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(1, rl.getResetSeconds()));
+            info = rl;
+            infoExpires = until;
+            if (rl.getRemaining() <= 0) drainedUntil = until;
+        }
+
+        void onRateLimited(RateLimitException e) {
+            if (e.getStatusCode() != 429) return;
+            int seconds = e.getRetryAfter() > 0 ? e.getRetryAfter() : info.getResetSeconds();
+            drainedUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(1, seconds));
+        }
+
+        boolean available(long now) {
+            return now - drainedUntil >= 0;
+        }
+
+        /** Remaining quota less calls in flight; unknown or expired quota counts as unlimited. */
+        long score(long now) {
+            RateLimitInfo i = info;
+            long remaining = i.getLimit() > 0 && now - infoExpires < 0 ? i.getRemaining() : Integer.MAX_VALUE;
+            return remaining - inFlight.get();
+        }
+    }
+
+    public static final class Builder {
+        private final Set<String> apiKeys = new LinkedHashSet<>();
+        private Consumer<Sec4DevClient.Builder> configure;
+        private Sec4DevTransport transport;
+        private int bulkConcurrency;
+
+        private Builder() {}
+
+        /** Add an API key; each must start with {@code sec4_}. Duplicates are ignored. */
+        public Builder apiKey(String apiKey) {
+            if (apiKey != null) this.apiKeys.add(apiKey.trim());
+            return this;
+        }
+
+        public Builder apiKeys(Collection<String> apiKeys) {
+            for (String k : apiKeys) apiKey(k);
+            return this;
+        }
+
+        /**
+         * Settings applied to every per-key client (base URL, timeouts, caches, ...).
+         * The pool sets the API key, the shared transport and the rate limit callback itself.
+         * Caches, disk caches and request coalescing are created once and shared by all keys.
+         */
+        public Builder client(Consumer<Sec4DevClient.Builder> configure) {
+            this.configure = configure;
+            return this;
+        }
+
+        /** Connections shared by all keys (default: one new transport for the pool). */
+        public Builder transport(Sec4DevTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /** Maximum requests in flight for one {@code checkAll} call (default: 16 per key). */
+        public Builder bulkConcurrency(int concurrency) {
+            this.bulkConcurrency = concurrency;
+            return this;
+        }
+
+        public Sec4DevClientPool build() {
+            return new Sec4DevClientPool(this);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.sec4dev;
+
+/**
+ * Instrumentation hooks for every API call, reported per endpoint path
+ * (e.g. {@code "/ip/check"}). All methods default to no-ops, so an
+ * implementation overrides only what it needs. Callbacks run on the calling
+ * or HTTP client thread and must be fast and thread-safe.
+ *
+ * <p>{@link #NOOP} is the default; with it the client skips the extra
+ * timing calls entirely. {@link HistogramMetrics} is a built-in
+ * implementation backed by lock-free histograms.
+ */
+public interface Sec4DevMetrics {
+
+    Sec4DevMetrics NOOP = new Sec4DevMetrics() {};
+
+    /**
+     * A lookup finished, after any retries and backoff. {@code success} is false when it
+     * ended in an exception. Cache hits and circuit-breaker fallbacks are not calls.
+     */
+    default void onCall(String endpoint, boolean success, long nanos) {}
+
+    /**
+     * One HTTP attempt finished. {@code attempt} is 0 for the first try and counts up for
+     * retries; {@code statusCode} is 0 when no response was received.
+     */
+    default void onAttempt(String endpoint, int attempt, int statusCode, long nanos, long bytesOut, long bytesIn) {}
+
+    /** The client is about to wait {@code millis} before retrying. */
+    default void onBackoff(String endpoint, long millis) {}
+
+    /** A result cache was consulted before sending a request. */
+    default void onCacheLookup(String endpoint, boolean hit) {}
+
+    /** Time spent encoding a request body. */
+    default void onEncode(String endpoint, long nanos) {}
+
+    /** Time spent decoding a response body. */
+    default void onDecode(String endpoint, long nanos) {}
+}
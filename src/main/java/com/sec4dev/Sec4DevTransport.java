@@ -0,0 +1,124 @@
+package com.sec4dev;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The connections behind one or more {@link Sec4DevClient}s. A transport wraps
+ * a fixed set of {@code java.net.http.HttpClient}s and spreads requests over
+ * them round-robin; with HTTP/2 each keeps one multiplexed connection per
+ * host, so {@code connections} bounds how many sockets are opened. Share one
+ * transport between clients (e.g. one client per API key) to reuse
+ * connections instead of opening a pool per client.
+ */
+public final class Sec4DevTransport {
+
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient[] clients;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private Sec4DevTransport(HttpClient[] clients) {
+        this.clients = clients;
+    }
+
+    /** Wraps an existing client, e.g. one already configured with a proxy or SSL context. */
+    public static Sec4DevTransport of(HttpClient client) {
+        if (client == null) throw new IllegalArgumentException("HttpClient must not be null");
+        return new Sec4DevTransport(new HttpClient[] {client});
+    }
+
+    public int getConnections() {
+        return clients.length;
+    }
+
+    HttpClient client() {
+        if (clients.length == 1) return clients[0];
+        return clients[Math.floorMod(next.getAndIncrement(), clients.length)];
+    }
+
+    /**
+     * Sends a HEAD request to {@code uri} over every underlying client, so each opens
+     * its connection and completes the TLS (and HTTP/2) handshake. Any HTTP status
+     * counts as success; only connection failures complete the future exceptionally.
+     */
+    CompletableFuture<Void> warmUp(URI uri, Duration timeout) {
+        HttpRequest req = HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(timeout)
+                .build();
+        CompletableFuture<?>[] all = new CompletableFuture<?>[clients.length];
+        for (int i = 0; i < clients.length; i++) {
+            all[i] = clients[i].sendAsync(req, HttpResponse.BodyHandlers.discarding());
+        }
+        return CompletableFuture.allOf(all);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private int connections = 1;
+        private Executor executor;
+        private long connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT.toMillis();
+
+        private Builder() {}
+
+        /**
+         * Preferred HTTP version (default: HTTP/2, which falls back to HTTP/1.1 if the
+         * server does not offer it). Use {@code HTTP_1_1} to disable HTTP/2.
+         */
+        public Builder version(HttpClient.Version version) {
+            this.version = version;
+            return this;
+        }
+
+        /** Number of underlying clients, i.e. HTTP/2 connections per host (default: 1). */
+        public Builder connections(int connections) {
+            this.connections = connections;
+            return this;
+        }
+
+        /** Executor for response handling; defaults to virtual threads on JDK 21+. */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder connectTimeout(long duration, TimeUnit unit) {
+            this.connectTimeoutMs = unit.toMillis(duration);
+            return this;
+        }
+
+        public Sec4DevTransport build() {
+            if (connections <= 0) {
+                throw new IllegalArgumentException("Transport connections must be positive");
+            }
+            if (connectTimeoutMs <= 0) {
+                throw new IllegalArgumentException("Connect timeout must be positive");
+            }
+            if (version == null) {
+                throw new IllegalArgumentException("HTTP version must not be null");
+            }
+            Executor exec = executor != null ? executor : VirtualThreads.executor();
+            HttpClient[] clients = new HttpClient[connections];
+            for (int i = 0; i < connections; i++) {
+                HttpClient.Builder b = HttpClient.newBuilder()
+                        .version(version)
+                        .connectTimeout(Duration.ofMillis(connectTimeoutMs));
+                if (exec != null) b.executor(exec);
+                clients[i] = b.build();
+            }
+            return new Sec4DevTransport(clients);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.sec4dev;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent identical lookups. The first caller for a key runs
+ * the call; callers arriving while it is in flight share its result or error.
+ */
+final class SingleFlight<V> {
+
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /** Runs {@code call} on the calling thread unless an identical call is already in flight. */
+    V execute(String endpoint, String key, Supplier<V> call) {
+        String k = endpoint + '\n' + key;
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(k, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        try {
+            V v = call.get();
+            mine.complete(v);
+            return v;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(k, mine);
+        }
+    }
+
+    /** Async variant of {@link #execute}; shares in-flight calls with it. */
+    CompletableFuture<V> executeAsync(String endpoint, String key, Supplier<CompletableFuture<V>> call) {
+        String k = endpoint + '\n' + key;
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(k, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.thenApply(v -> v);
+        }
+        CompletableFuture<V> f;
+        try {
+            f = call.get();
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+        f.whenComplete((v, err) -> {
+            inFlight.remove(k, mine);
+            if (err != null) mine.completeExceptionally(HttpClient.unwrap(err));
+            else mine.complete(v);
+        });
+        // Callers get a dependent future so cancelling one does not cancel the shared call.
+        return mine.thenApply(v -> v);
+    }
+
+    long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Sec4DevException("Interrupted", 0, null);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new Sec4DevException(cause.getMessage(), 0, null);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.sec4dev;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns repeated strings (organizations, providers, countries) as small ids
+ * so compact results can refer to them with a {@code char}. Ids are never
+ * reused; once {@link #MAX_SIZE} strings are known, new ones are refused.
+ */
+final class StringDictionary {
+
+    /** Id of {@code null}. */
+    static final char NULL = 0;
+    /** Returned by {@link #intern} when the dictionary is full. */
+    static final int FULL = -1;
+    static final int MAX_SIZE = Character.MAX_VALUE;
+
+    private final ConcurrentHashMap<String, Character> ids = new ConcurrentHashMap<>();
+    private volatile String[] strings = new String[64];
+    private int size = 1;
+
+    /** Returns the id of {@code s}, adding it if needed, or {@link #FULL}. */
+    int intern(String s) {
+        if (s == null) return NULL;
+        Character id = ids.get(s);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(s);
+            if (id != null) return id;
+            if (size >= MAX_SIZE) return FULL;
+            String[] t = strings;
+            if (size == t.length) t = Arrays.copyOf(t, Math.min(t.length * 2, MAX_SIZE));
+            t[size] = s;
+            // Publish the array before the id so a reader that sees the id sees the string.
+            strings = t;
+            ids.put(s, (char) size);
+            return size++;
+        }
+    }
+
+    String get(char id) {
+        return strings[id];
+    }
+
+    synchronized int size() {
+        return size - 1;
+    }
+}
@@ -0,0 +1,45 @@
+package com.sec4dev;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token account for capping extra requests (hedges, retries) at a
+ * fraction of regular traffic. Every regular request deposits {@code ratio}
+ * tokens, an extra request withdraws one, and the balance is capped so an idle
+ * period cannot bank an unbounded burst.
+ */
+final class TokenBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long max;
+    private final AtomicLong balance;
+
+    TokenBudget(double ratio, int maxTokens) {
+        this.deposit = Math.max(1, Math.round(ratio * SCALE));
+        this.max = maxTokens * SCALE;
+        this.balance = new AtomicLong(max);
+    }
+
+    void deposit() {
+        long b;
+        do {
+            b = balance.get();
+            if (b >= max) return;
+        } while (!balance.compareAndSet(b, Math.min(max, b + deposit)));
+    }
+
+    boolean tryWithdraw() {
+        long b;
+        do {
+            b = balance.get();
+            if (b < SCALE) return false;
+        } while (!balance.compareAndSet(b, b - SCALE));
+        return true;
+    }
+
+    boolean isExhausted() {
+        return balance.get() < SCALE;
+    }
+}
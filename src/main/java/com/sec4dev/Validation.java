@@ -1,31 +1,43 @@
 package com.sec4dev;
 
-import java.net.InetAddress;
-import java.util.regex.Pattern;
-
 /** Client-side input validation. */
 public final class Validation {
 
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$");
-
     private Validation() {}
 
-    /** Validates email format. Throws ValidationException if invalid. */
+    /** Validates email format without allocating. Throws ValidationException if invalid. */
     public static void validateEmail(String email) {
-        if (email == null || email.isEmpty()) {
-            throw new ValidationException("Email is required", 422, null);
+        EmailAddress.scan(email);
+    }
+
+    /**
+     * Validates an email and splits it into local part and normalized domain in one pass.
+     * Throws ValidationException if invalid.
+     */
+    public static EmailAddress parseEmail(String email) {
+        return EmailAddress.parse(email);
+    }
+
+    /** Validates IP (IPv4 or IPv6). Throws ValidationException if invalid. */
+    public static void validateIp(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            throw new ValidationException("IP address is required", 422, null);
         }
-        String s = email.trim();
+        String s = ip.trim();
         if (s.isEmpty()) {
-            throw new ValidationException("Email cannot be empty", 422, null);
+            throw new ValidationException("IP address cannot be empty", 422, null);
         }
-        if (!EMAIL_PATTERN.matcher(s).matches()) {
-            throw new ValidationException("Invalid email format", 422, null);
+        if (IpLiteral.parse(s, new long[2]) == 0) {
+            throw new ValidationException("Invalid IP address format", 422, null);
         }
     }
 
-    /** Validates IP (IPv4 or IPv6). Throws ValidationException if invalid. */
-    public static void validateIp(String ip) {
+    /**
+     * Validates an IP literal and returns its canonical form: dotted-quad for IPv4 and
+     * IPv4-mapped IPv6, RFC 5952 compact lowercase for other IPv6. Hostnames are rejected
+     * without a DNS lookup. Throws ValidationException if invalid.
+     */
+    public static String normalizeIp(String ip) {
         if (ip == null || ip.isEmpty()) {
             throw new ValidationException("IP address is required", 422, null);
         }
@@ -33,10 +45,10 @@ public final class Validation {
         if (s.isEmpty()) {
             throw new ValidationException("IP address cannot be empty", 422, null);
         }
-        try {
-            InetAddress.getByName(s);
-        } catch (Exception e) {
+        String canonical = IpLiteral.canonical(s);
+        if (canonical == null) {
             throw new ValidationException("Invalid IP address format", 422, null);
         }
+        return canonical;
     }
 }
@@ -0,0 +1,45 @@
+package com.sec4dev;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()} at runtime, so
+ * the SDK keeps its Java 11 baseline and still uses virtual threads on JDK 21+.
+ */
+final class VirtualThreads {
+
+    private static final MethodHandle FACTORY = lookup();
+
+    private VirtualThreads() {}
+
+    /** A shared virtual-thread-per-task executor, or null before JDK 21. */
+    static ExecutorService executor() {
+        return Shared.EXECUTOR;
+    }
+
+    private static ExecutorService newExecutor() {
+        if (FACTORY == null) return null;
+        try {
+            return (ExecutorService) FACTORY.invokeExact();
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static MethodHandle lookup() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static final class Shared {
+        static final ExecutorService EXECUTOR = newExecutor();
+    }
+}
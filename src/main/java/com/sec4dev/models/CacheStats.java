@@ -0,0 +1,42 @@
+package com.sec4dev.models;
+
+import java.util.Objects;
+
+/** Counters for a result cache. */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    public CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public int getSize() { return size; }
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CacheStats that = (CacheStats) o;
+        return hits == that.hits && misses == that.misses && evictions == that.evictions && size == that.size;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hits, misses, evictions, size);
+    }
+}
@@ -0,0 +1,58 @@
+package com.sec4dev.models;
+
+import java.util.Collections;
+import java.util.Map;
+
+/** Point-in-time view of the built-in metrics for one endpoint. */
+public final class EndpointMetrics {
+
+    private final long calls;
+    private final long failures;
+    private final long retries;
+    private final long bytesOut;
+    private final long bytesIn;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final Map<Integer, Long> statusCodes;
+    private final LatencySummary callLatency;
+    private final LatencySummary attemptLatency;
+    private final LatencySummary backoff;
+    private final LatencySummary encode;
+    private final LatencySummary decode;
+
+    public EndpointMetrics(long calls, long failures, long retries, long bytesOut, long bytesIn,
+                           long cacheHits, long cacheMisses, Map<Integer, Long> statusCodes,
+                           LatencySummary callLatency, LatencySummary attemptLatency, LatencySummary backoff,
+                           LatencySummary encode, LatencySummary decode) {
+        this.calls = calls;
+        this.failures = failures;
+        this.retries = retries;
+        this.bytesOut = bytesOut;
+        this.bytesIn = bytesIn;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.statusCodes = Collections.unmodifiableMap(statusCodes);
+        this.callLatency = callLatency;
+        this.attemptLatency = attemptLatency;
+        this.backoff = backoff;
+        this.encode = encode;
+        this.decode = decode;
+    }
+
+    public long getCalls() { return calls; }
+    public long getFailures() { return failures; }
+    public long getRetries() { return retries; }
+    public long getBytesOut() { return bytesOut; }
+    public long getBytesIn() { return bytesIn; }
+    public long getCacheHits() { return cacheHits; }
+    public long getCacheMisses() { return cacheMisses; }
+    /** Attempts by HTTP status; 0 counts attempts that got no response. */
+    public Map<Integer, Long> getStatusCodes() { return statusCodes; }
+    /** End-to-end latency of calls, including retries and backoff. */
+    public LatencySummary getCallLatency() { return callLatency; }
+    public LatencySummary getAttemptLatency() { return attemptLatency; }
+    /** Backoff delays before retries (recorded in microseconds). */
+    public LatencySummary getBackoff() { return backoff; }
+    public LatencySummary getEncode() { return encode; }
+    public LatencySummary getDecode() { return decode; }
+}
@@ -0,0 +1,42 @@
+package com.sec4dev.models;
+
+/** Counters for a streaming enrichment run. */
+public final class EnrichmentProgress {
+
+    private final long recordsRead;
+    private final long recordsWritten;
+    private final long lookups;
+    private final long deduplicated;
+    private final long failed;
+    private final long elapsedMs;
+
+    public EnrichmentProgress(long recordsRead, long recordsWritten, long lookups,
+                              long deduplicated, long failed, long elapsedMs) {
+        this.recordsRead = recordsRead;
+        this.recordsWritten = recordsWritten;
+        this.lookups = lookups;
+        this.deduplicated = deduplicated;
+        this.failed = failed;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public long getRecordsRead() { return recordsRead; }
+    public long getRecordsWritten() { return recordsWritten; }
+    /** Lookups issued; records whose key was seen recently reuse an earlier lookup instead. */
+    public long getLookups() { return lookups; }
+    public long getDeduplicated() { return deduplicated; }
+    /** Records written with an error instead of a result (bad key, failed lookup). */
+    public long getFailed() { return failed; }
+    public long getElapsedMs() { return elapsedMs; }
+
+    /** Records written per second since the run started. */
+    public double getRecordsPerSecond() {
+        return elapsedMs == 0 ? 0.0 : recordsWritten * 1000.0 / elapsedMs;
+    }
+
+    @Override
+    public String toString() {
+        return "read=" + recordsRead + " written=" + recordsWritten + " lookups=" + lookups
+                + " deduplicated=" + deduplicated + " failed=" + failed + " elapsed=" + elapsedMs + "ms";
+    }
+}
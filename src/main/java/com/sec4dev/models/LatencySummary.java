@@ -0,0 +1,30 @@
+package com.sec4dev.models;
+
+/** Percentiles of a latency distribution, in microseconds (about 12.5% precision). */
+public final class LatencySummary {
+
+    private final long count;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    public LatencySummary(long count, long p50, long p90, long p99, long max) {
+        this.count = count;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public long getCount() { return count; }
+    public long getP50Micros() { return p50; }
+    public long getP90Micros() { return p90; }
+    public long getP99Micros() { return p99; }
+    public long getMaxMicros() { return max; }
+
+    @Override
+    public String toString() {
+        return "n=" + count + " p50=" + p50 + "us p90=" + p90 + "us p99=" + p99 + "us max=" + max + "us";
+    }
+}
@@ -0,0 +1,51 @@
+package com.sec4dev;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimiterTest {
+
+    @Test
+    void adaptiveLimiterFollowsLatencyAndQueuesOrRejects() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(ConcurrencyLimitConfig.builder()
+                .initialLimit(10).maxLimit(12).maxWait(0, TimeUnit.MILLISECONDS).build());
+        for (int round = 0; round < 5; round++) {
+            while (limiter.tryAcquire()) { }
+            int held = limiter.inFlight();
+            for (int i = 0; i < held; i++) limiter.onComplete(1_000_000, false);
+        }
+        assertEquals(12, limiter.limit());
+        // Ten times the base RTT: the estimated server queue exceeds BETA, so the limit shrinks.
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onComplete(10_000_000, false);
+        }
+        assertEquals(9, limiter.limit());
+        assertTrue(limiter.tryAcquire());
+        limiter.onComplete(1_000_000, true);
+        assertEquals(8, limiter.limit());
+
+        for (int i = 0; i < 8; i++) limiter.acquire();
+        CompletionException rejected = assertThrows(CompletionException.class, () -> limiter.acquireAsync().join());
+        assertInstanceOf(ConcurrencyLimitException.class, rejected.getCause());
+        assertEquals(1, limiter.rejectedCount());
+
+        AdaptiveLimiter queued = new AdaptiveLimiter(ConcurrencyLimitConfig.builder()
+                .initialLimit(1).maxLimit(1).maxWait(200, TimeUnit.MILLISECONDS).build());
+        queued.acquire();
+        CompletableFuture<Void> waiting = queued.acquireAsync();
+        assertFalse(waiting.isDone());
+        queued.release();
+        waiting.get(1, TimeUnit.SECONDS);
+        assertEquals(1, queued.inFlight());
+        CompletableFuture<Void> timedOut = queued.acquireAsync();
+        ExecutionException late = assertThrows(ExecutionException.class, () -> timedOut.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(ConcurrencyLimitException.class, late.getCause());
+    }
+}
@@ -0,0 +1,36 @@
+package com.sec4dev;
+
+import com.sec4dev.models.IPCheckResult;
+import com.sec4dev.models.IPGeo;
+import com.sec4dev.models.IPNetwork;
+import com.sec4dev.models.IPSignals;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactIpResultTest {
+
+    @Test
+    void compactIpResultRoundTripsLosslessly() {
+        StringDictionary dict = new StringDictionary();
+        List<IPCheckResult> results = Arrays.asList(
+                new IPCheckResult("203.0.113.42", "hosting", 0.95,
+                        new IPSignals(true, false, false, true, false, true),
+                        new IPNetwork(16509, "Amazon.com, Inc.", "AWS"),
+                        new IPGeo("US", null)),
+                new IPCheckResult("198.51.100.7", "residential", 0.8, null,
+                        new IPNetwork(null, "Amazon.com, Inc.", null), null),
+                new IPCheckResult(null, "unknown", 0, null, null, null),
+                // Not representable exactly: kept as is.
+                new IPCheckResult("192.0.2.1", "satellite", 0.5, null, null, null),
+                new IPCheckResult("192.0.2.2", "vpn", 0.123456, null, null, null));
+        for (IPCheckResult r : results) {
+            assertEquals(r, CompactIpResult.of(r, dict).toResult(dict));
+        }
+        assertEquals(3, dict.size());
+        assertEquals("192.0.2.9", CompactIpResult.of(results.get(0), dict).toResult("192.0.2.9", dict).getIp());
+    }
+}
@@ -0,0 +1,21 @@
+package com.sec4dev;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointTest {
+
+    @Test
+    void bodyMatchesJacksonEncoding() throws Exception {
+        Endpoint endpoint = new HttpClient("http://localhost/api/v1", "sec4_test_key", null, 0, 0, null, null)
+                .endpoint("/email/check", "email");
+        String[] values = {"user@tempmail.com", "quo\"te\\slash", "tab\tnew\nline\u0001", "b\u00fccher@\u4f8b\u3048.jp", "\ud83d\ude00@x.io"};
+        for (String v : values) {
+            byte[] expected = JsonCodec.MAPPER.writeValueAsBytes(Map.of("email", v));
+            assertEquals(JsonCodec.MAPPER.readTree(expected), JsonCodec.MAPPER.readTree(endpoint.body(v)), v);
+        }
+    }
+}
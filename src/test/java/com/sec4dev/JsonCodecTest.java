@@ -0,0 +1,26 @@
+package com.sec4dev;
+
+import com.sec4dev.models.IPCheckResult;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCodecTest {
+
+    @Test
+    void ipDecoderSkipsUnknownFieldsAndDefaultsNulls() {
+        byte[] body = ("{\"ip\":\"192.0.2.1\",\"extra\":{\"nested\":[1,2]},\"confidence\":0.5,"
+                + "\"signals\":{\"is_tor\":true,\"is_new\":true},\"network\":{\"asn\":null,\"org\":\"Example\"},"
+                + "\"geo\":null}").getBytes(StandardCharsets.UTF_8);
+        IPCheckResult r = JsonCodec.decodeIp(body);
+        assertEquals("192.0.2.1", r.getIp());
+        assertEquals("unknown", r.getClassification());
+        assertTrue(r.getSignals().isTor());
+        assertNull(r.getNetwork().getAsn());
+        assertEquals("Example", r.getNetwork().getOrg());
+        assertNull(r.getGeo().getCountry());
+        assertThrows(Sec4DevException.class, () -> JsonCodec.decodeIp("[]".getBytes(StandardCharsets.UTF_8)));
+    }
+}
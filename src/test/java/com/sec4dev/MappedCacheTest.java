@@ -0,0 +1,68 @@
+package com.sec4dev;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCacheTest {
+
+    private static final MappedCache.Codec<String> STRINGS = new MappedCache.Codec<String>() {
+        @Override
+        public void encode(String value, ByteBuffer out) {
+            out.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String decode(String key, ByteBuffer in) {
+            byte[] b = new byte[in.remaining()];
+            in.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writerTakesOverOnlyLocksOfDeadProcesses() throws Exception {
+        Path file = dir.resolve("strings.cache");
+        MappedCache<String> cache = new MappedCache<>(file, 1, STRINGS);
+        int slot = MappedCache.HEADER;
+        cache.put("k", "v", 60_000);
+        assertEquals("v", cache.get("k"));
+
+        // A live owner, even a stalled one, keeps its lock.
+        long locked = cache.lock(slot);
+        assertTrue(locked > 0);
+        cache.put("k", "w", 60_000);
+        assertNull(cache.get("k"));
+
+        // Make the lock look like it belongs to a process that has exited mid-copy.
+        Process exited = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-version").redirectErrorStream(true).start();
+        exited.getInputStream().readAllBytes();
+        exited.waitFor();
+        long stale = exited.pid() << 32 | (locked & 0xffff_ffffL);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+            map.order(ByteOrder.nativeOrder());
+            map.putLong(slot, stale);
+        }
+
+        cache.put("k", "w", 60_000);
+        assertEquals("w", cache.get("k"));
+        // The original owner releasing late must not publish over the new write.
+        assertFalse(cache.unlock(slot, stale));
+        assertEquals("w", cache.get("k"));
+        assertEquals("w", new MappedCache<>(file, 1, STRINGS).get("k"));
+    }
+}
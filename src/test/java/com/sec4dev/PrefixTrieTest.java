@@ -0,0 +1,74 @@
+package com.sec4dev;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTrieTest {
+
+    @Test
+    void prefixTrieMatchesLinearScan() {
+        Random random = new Random(42);
+        PrefixTrie trie = new PrefixTrie();
+        int n = 2_000;
+        long[][] prefixes = new long[n][3];
+        for (int i = 0; i < n; i++) {
+            // Short prefixes share a few top bits so that nesting and node splits happen;
+            // half are IPv4-mapped to cover the IPv4 jump table.
+            boolean v4 = i % 2 == 0;
+            long hi = v4 ? 0 : (random.nextInt(4) & 3L) << 62 | random.nextLong() >>> 2;
+            long lo = v4 ? 0xffffL << 32 | (random.nextInt(4) & 3L) << 30 | random.nextInt() >>> 2 : random.nextLong();
+            int len = v4 ? 96 + random.nextInt(33) : random.nextInt(129);
+            hi &= PrefixTrie.maskHi(len);
+            lo &= PrefixTrie.maskLo(len);
+            prefixes[i] = new long[] {hi, lo, len};
+            trie.insert(hi, lo, len, i);
+        }
+        trie.freeze();
+        for (int q = 0; q < 20_000; q++) {
+            long[] base = prefixes[random.nextInt(n)];
+            long hi = q % 3 == 0 ? base[0] | (random.nextLong() & ~PrefixTrie.maskHi((int) base[2]))
+                    : q % 3 == 1 ? 0 : random.nextLong();
+            long lo = q % 3 == 0 ? base[1] | (random.nextLong() & ~PrefixTrie.maskLo((int) base[2]))
+                    : q % 3 == 1 ? 0xffffL << 32 | (random.nextInt() & 0xffff_ffffL) : random.nextLong();
+            int expected = -1;
+            int bestLen = -1;
+            for (int i = 0; i < n; i++) {
+                int len = (int) prefixes[i][2];
+                if ((hi & PrefixTrie.maskHi(len)) == prefixes[i][0] && (lo & PrefixTrie.maskLo(len)) == prefixes[i][1]
+                        && len >= bestLen) {
+                    // Later inserts of the same prefix replace earlier ones.
+                    expected = i;
+                    bestLen = len;
+                }
+            }
+            assertEquals(expected, trie.lookup(hi, lo));
+        }
+    }
+
+    @Test
+    void ipv4JumpTableResumesAtSixteenBitNodes() {
+        // The /16 node and the branch above two sibling /17s both sit at the jump table's depth.
+        PrefixTrie nested = new PrefixTrie();
+        nested.insert(0, v4(10, 0, 0, 0), 96 + 16, 0);
+        nested.insert(0, v4(10, 0, 128, 0), 96 + 17, 1);
+        nested.freeze();
+        assertEquals(0, nested.lookup(0, v4(10, 0, 5, 1)));
+        assertEquals(1, nested.lookup(0, v4(10, 0, 200, 1)));
+        assertEquals(-1, nested.lookup(0, v4(10, 1, 0, 1)));
+
+        PrefixTrie siblings = new PrefixTrie();
+        siblings.insert(0, v4(10, 1, 0, 0), 96 + 17, 2);
+        siblings.insert(0, v4(10, 1, 128, 0), 96 + 17, 3);
+        siblings.freeze();
+        assertEquals(2, siblings.lookup(0, v4(10, 1, 5, 1)));
+        assertEquals(3, siblings.lookup(0, v4(10, 1, 200, 1)));
+        assertEquals(-1, siblings.lookup(0, v4(10, 2, 0, 1)));
+    }
+
+    private static long v4(int a, int b, int c, int d) {
+        return 0xffffL << 32 | (long) a << 24 | b << 16 | c << 8 | d;
+    }
+}
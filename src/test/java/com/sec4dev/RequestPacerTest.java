@@ -0,0 +1,24 @@
+package com.sec4dev;
+
+import com.sec4dev.models.RateLimitInfo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestPacerTest {
+
+    @Test
+    void requestPacerSpreadsRemainingBudgetUntilReset() {
+        RequestPacer queue = new RequestPacer(RateLimitPolicy.QUEUE, 60_000);
+        queue.update(new RateLimitInfo(100, 2, 10));
+        assertEquals(0, queue.reserve());
+        long wait = queue.reserve();
+        assertTrue(wait > 4_000 && wait <= 5_000, "wait was " + wait);
+
+        RequestPacer failFast = new RequestPacer(RateLimitPolicy.FAIL_FAST, 60_000);
+        failFast.update(new RateLimitInfo(100, 2, 10));
+        assertEquals(0, failFast.reserve());
+        RateLimitException e = assertThrows(RateLimitException.class, failFast::reserve);
+        assertEquals(5, e.getRetryAfter());
+    }
+}
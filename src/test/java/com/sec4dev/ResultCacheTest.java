@@ -0,0 +1,71 @@
+package com.sec4dev;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        ResultCache<String> cache = new ResultCache<>(CacheConfig.builder().maxEntries(2).build());
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    void refreshAheadServesStaleEntriesUntilTheTtl() {
+        AtomicLong now = new AtomicLong();
+        ResultCache<String> cache = new ResultCache<>(CacheConfig.builder().ttl(200, TimeUnit.MILLISECONDS)
+                .refreshAfter(20, TimeUnit.MILLISECONDS).refreshJitter(0).build(), now::get);
+        AtomicInteger refreshes = new AtomicInteger();
+        cache.put("k", "v");
+        assertEquals("v", cache.get("k", refreshes::incrementAndGet));
+        assertEquals(0, refreshes.get());
+
+        // Past the refresh time: served, and only the first hit is asked to refresh.
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30));
+        assertEquals("v", cache.get("k", refreshes::incrementAndGet));
+        assertEquals("v", cache.get("k", refreshes::incrementAndGet));
+        assertEquals(1, refreshes.get());
+
+        // A failed refresh is offered again to the next hit; the entry still ends at the TTL.
+        cache.refreshed("k");
+        assertEquals("v", cache.get("k", refreshes::incrementAndGet));
+        assertEquals(2, refreshes.get());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        assertNull(cache.get("k", refreshes::incrementAndGet));
+
+        // A successful refresh replaces the entry and restarts its schedule.
+        cache.put("k", "w");
+        assertEquals("w", cache.get("k", refreshes::incrementAndGet));
+        assertEquals(2, refreshes.get());
+        assertThrows(IllegalArgumentException.class, () -> CacheConfig.builder()
+                .ttl(1, TimeUnit.SECONDS).refreshAfter(1, TimeUnit.SECONDS).build());
+    }
+
+    @Test
+    void refreshJitterBringsRefreshForward() {
+        AtomicLong now = new AtomicLong();
+        ResultCache<String> cache = new ResultCache<>(CacheConfig.builder().ttl(1, TimeUnit.MINUTES)
+                .refreshAfter(1000, TimeUnit.MILLISECONDS).refreshJitter(0.5).build(), now::get);
+        for (int i = 0; i < 100; i++) cache.put("k" + i, "v");
+        AtomicInteger due = new AtomicInteger();
+        now.set(TimeUnit.MILLISECONDS.toNanos(499));
+        for (int i = 0; i < 100; i++) cache.get("k" + i, due::incrementAndGet);
+        assertEquals(0, due.get());
+        now.set(TimeUnit.MILLISECONDS.toNanos(1000));
+        for (int i = 0; i < 100; i++) cache.get("k" + i, due::incrementAndGet);
+        assertEquals(100, due.get());
+    }
+}
@@ -1,16 +1,29 @@
 package com.sec4dev;
 
+import com.sec4dev.models.CacheStats;
 import com.sec4dev.models.EmailCheckResult;
+import com.sec4dev.models.EndpointMetrics;
 import com.sec4dev.models.IPCheckResult;
+import com.sec4dev.models.RateLimitInfo;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
-import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
@@ -22,6 +35,12 @@ class Sec4DevClientTest {
     private HttpServer server;
     private int port;
     private Sec4DevClient client;
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+    private final AtomicInteger ipCalls = new AtomicInteger();
+    private final AtomicInteger emailCalls = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+    private final AtomicInteger downCalls = new AtomicInteger();
+    private final Map<String, AtomicInteger> keyCalls = new java.util.concurrent.ConcurrentHashMap<>();
 
     @BeforeEach
     void setUp() throws Exception {
@@ -33,6 +52,7 @@ class Sec4DevClientTest {
                 exchange.sendResponseHeaders(405, -1);
                 return;
             }
+            emailCalls.incrementAndGet();
             String body = "{\"email\":\"user@tempmail.com\",\"domain\":\"tempmail.com\",\"is_disposable\":true}";
             exchange.getResponseHeaders().set("Content-Type", "application/json");
             exchange.sendResponseHeaders(200, body.getBytes(StandardCharsets.UTF_8).length);
@@ -46,6 +66,7 @@ class Sec4DevClientTest {
                 exchange.sendResponseHeaders(405, -1);
                 return;
             }
+            ipCalls.incrementAndGet();
             String body = "{\"ip\":\"203.0.113.42\",\"classification\":\"hosting\",\"confidence\":0.95,"
                     + "\"signals\":{\"is_hosting\":true,\"is_residential\":false,\"is_mobile\":false,\"is_vpn\":false,\"is_tor\":false,\"is_proxy\":false},"
                     + "\"network\":{\"asn\":16509,\"org\":\"Amazon.com, Inc.\",\"provider\":\"AWS\"},"
@@ -57,6 +78,73 @@ class Sec4DevClientTest {
             }
         });
 
+        server.createContext("/flaky/api/v1/ip/check", exchange -> {
+            if (flakyCalls.getAndIncrement() == 0) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            String body = "{\"ip\":\"198.51.100.7\",\"classification\":\"residential\",\"confidence\":0.8}";
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.getBytes(StandardCharsets.UTF_8).length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        server.createContext("/slow/api/v1/ip/check", exchange -> {
+            slowCalls.incrementAndGet();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String body = "{\"ip\":\"192.0.2.1\",\"classification\":\"vpn\",\"confidence\":0.9}";
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.getBytes(StandardCharsets.UTF_8).length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        server.createContext("/down/api/v1/ip/check", exchange -> {
+            downCalls.incrementAndGet();
+            // Drain the request so the server keeps the connection open for reuse.
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+
+        server.createContext("/errors/api/v1/ip/check", exchange -> {
+            byte[] body = "{\"detail\":\"Quota exceeded\",\"plan\":\"free\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(402, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+
+        server.createContext("/keys/api/v1/ip/check", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            String key = exchange.getRequestHeaders().getFirst("X-API-Key");
+            int n = keyCalls.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            exchange.getResponseHeaders().set("X-RateLimit-Limit", "100");
+            exchange.getResponseHeaders().set("X-RateLimit-Reset", "60");
+            if (key.equals("sec4_drained")) {
+                exchange.getResponseHeaders().set("X-RateLimit-Remaining", "0");
+                exchange.getResponseHeaders().set("Retry-After", "60");
+                exchange.sendResponseHeaders(429, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(100 - n));
+            byte[] body = "{\"ip\":\"203.0.113.42\",\"classification\":\"hosting\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+
         server.start();
         port = server.getAddress().getPort();
         String baseUrl = "http://localhost:" + port + "/api/v1";
@@ -130,4 +218,667 @@ class Sec4DevClientTest {
         assertThrows(ValidationException.class, () -> client.getIp().check(""));
         assertThrows(ValidationException.class, () -> client.getIp().check("not-an-ip"));
     }
+
+    @Test
+    void emailCheckAsyncReturnsResult() {
+        EmailCheckResult result = client.getEmail().checkAsync("user@tempmail.com").join();
+        assertEquals("tempmail.com", result.getDomain());
+        assertTrue(result.isDisposable());
+    }
+
+    @Test
+    void ipCheckAsyncReturnsResult() {
+        IPCheckResult result = client.getIp().checkAsync("203.0.113.42").join();
+        assertEquals("hosting", result.getClassification());
+        assertEquals("AWS", result.getNetwork().getProvider());
+    }
+
+    @Test
+    void checkAsyncFailsWithValidationException() {
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> client.getIp().checkAsync("not-an-ip").join());
+        assertInstanceOf(ValidationException.class, e.getCause());
+    }
+
+    @Test
+    void ipCheckAsyncRetriesServerErrors() {
+        Sec4DevClient retrying = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/flaky/api/v1")
+                .retries(2)
+                .retryDelay(10)
+                .build();
+        IPCheckResult result = retrying.getIp().checkAsync("198.51.100.7").join();
+        assertEquals("residential", result.getClassification());
+        assertEquals(2, flakyCalls.get());
+    }
+
+    @Test
+    void ipCacheServesRepeatedLookups() {
+        Sec4DevClient cached = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/api/v1")
+                .retries(0)
+                .ipCache(CacheConfig.builder().ttl(1, TimeUnit.MINUTES).maxEntries(100).build())
+                .build();
+        assertFalse(cached.getIp().isVpn("203.0.113.42"));
+        assertFalse(cached.getIp().isTor("203.0.113.42"));
+        assertTrue(cached.getIp().checkAsync("203.0.113.42").join().getSignals().isHosting());
+        assertEquals(1, ipCalls.get());
+        CacheStats stats = cached.getIp().getCacheStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void refreshAheadServesStaleEntriesWhileOneRefreshRuns() throws Exception {
+        Sec4DevClient cached = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/slow/api/v1")
+                .retries(0)
+                .ipCache(CacheConfig.builder().ttl(1, TimeUnit.MINUTES)
+                        .refreshAfter(50, TimeUnit.MILLISECONDS).refreshJitter(0).build())
+                .build();
+        IPCheckResult first = cached.getIp().check("192.0.2.1");
+        Thread.sleep(60);
+        for (int i = 0; i < 5; i++) assertEquals(first, cached.getIp().check("192.0.2.1"));
+        // All five were answered from the cache while a single refresh went out.
+        assertEquals(5, cached.getIp().getCacheStats().getHits());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (slowCalls.get() < 2 && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(2, slowCalls.get());
+    }
+
+    @Test
+    void emailDomainCacheCoversEveryAddressOnDomain() {
+        Sec4DevClient cached = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/api/v1")
+                .retries(0)
+                .emailDomainCache(CacheConfig.builder()
+                        .ttl(1, TimeUnit.HOURS)
+                        .negativeTtl(5, TimeUnit.MINUTES)
+                        .maxEntries(1000)
+                        .build())
+                .build();
+        assertTrue(cached.getEmail().isDisposable("user@tempmail.com"));
+        EmailCheckResult other = cached.getEmail().check("Someone.Else@TempMail.COM");
+        assertEquals("Someone.Else@TempMail.COM", other.getEmail());
+        assertEquals("tempmail.com", other.getDomain());
+        assertTrue(other.isDisposable());
+        assertEquals(1, emailCalls.get());
+        assertEquals(1, cached.getEmail().getDomainCacheStats().getHits());
+    }
+
+    @Test
+    void concurrentIdenticalLookupsShareOneRequest() {
+        Sec4DevClient c = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/slow/api/v1")
+                .retries(0)
+                .coalesceRequests(true)
+                .build();
+        List<CompletableFuture<IPCheckResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(c.getIp().checkAsync(" 192.0.2.1 "));
+        }
+        for (CompletableFuture<IPCheckResult> f : futures) {
+            assertEquals("vpn", f.join().getClassification());
+        }
+        assertEquals(1, slowCalls.get());
+        assertEquals(7, c.getCoalescedRequests());
+    }
+
+    @Test
+    void slowLookupIsHedgedWithinBudget() throws Exception {
+        Sec4DevClient c = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/slow/api/v1")
+                .retries(1)
+                .retryPolicy(RetryPolicy.builder().budgetBurst(1).build())
+                .hedging(HedgingPolicy.builder().maxDelay(50, TimeUnit.MILLISECONDS).build())
+                .build();
+        assertEquals("vpn", c.getIp().check("192.0.2.1").getClassification());
+        assertEquals(1, c.getHedgedRequests());
+        assertEquals(0, client.getHedgedRequests());
+        // Cancelling the losing request is not a failure: it must not spend the retry budget.
+        Thread.sleep(100);
+        assertFalse(c.isRetryBudgetExhausted());
+        assertEquals(0, c.getRetriesDenied());
+
+        LatencyHistogram h = new LatencyHistogram(1_000);
+        for (int i = 1; i <= 100; i++) h.record(i * 1_000);
+        long p95 = h.percentile(0.95);
+        assertTrue(p95 >= 95_000 && p95 < 110_000, "p95 was " + p95);
+    }
+
+    @Test
+    void circuitOpensAfterFailuresAndServesFallback() throws Exception {
+        List<String> events = new CopyOnWriteArrayList<>();
+        IPCheckResult unknown = new IPCheckResult("0.0.0.0", "unknown", 0, null, null, null);
+        Sec4DevClient c = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/down/api/v1")
+                .retries(0)
+                .circuitBreaker(CircuitBreakerConfig.builder()
+                        .windowSize(4).minimumCalls(2).halfOpenProbes(1)
+                        .openDuration(200, TimeUnit.MILLISECONDS).build())
+                .onCircuitStateChange((endpoint, from, to) -> events.add(endpoint + ":" + to))
+                .build();
+        assertThrows(ServerException.class, () -> c.getIp().check("203.0.113.1"));
+        assertThrows(ServerException.class, () -> c.getIp().check("203.0.113.2"));
+        assertEquals(CircuitState.OPEN, c.getIp().getCircuitState());
+        assertThrows(CircuitOpenException.class, () -> c.getIp().check("203.0.113.3"));
+        CompletionException async = assertThrows(CompletionException.class,
+                () -> c.getIp().checkAsync("203.0.113.4").join());
+        assertInstanceOf(CircuitOpenException.class, async.getCause());
+        assertEquals(2, downCalls.get());
+        assertEquals(2, c.getIp().getCircuitRejectedCount());
+
+        Thread.sleep(250);
+        assertThrows(ServerException.class, () -> c.getIp().check("203.0.113.5"));
+        assertEquals(Arrays.asList("/ip/check:OPEN", "/ip/check:HALF_OPEN", "/ip/check:OPEN"), events);
+
+        Sec4DevClient withFallback = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/down/api/v1")
+                .retries(3)
+                .retryDelay(0)
+                .circuitBreaker(CircuitBreakerConfig.builder().windowSize(2).minimumCalls(2).build())
+                .ipFallback(ip -> unknown)
+                .build();
+        assertSame(unknown, withFallback.getIp().check("203.0.113.6"));
+        assertSame(unknown, withFallback.getIp().checkAsync("203.0.113.7").join());
+        assertEquals(5, downCalls.get());
+    }
+
+    @Test
+    void retryBudgetStopsRetriesOnceSpent() {
+        Sec4DevClient c = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/down/api/v1")
+                .retries(3)
+                .retryDelay(1)
+                .retryPolicy(RetryPolicy.builder().budgetBurst(2).build())
+                .build();
+        assertFalse(c.isRetryBudgetExhausted());
+        assertThrows(ServerException.class, () -> c.getIp().check("203.0.113.1"));
+        assertEquals(3, downCalls.get());
+        assertTrue(c.isRetryBudgetExhausted());
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> c.getIp().checkAsync("203.0.113.2").join());
+        assertInstanceOf(ServerException.class, e.getCause());
+        assertEquals(4, downCalls.get());
+        assertEquals(2, c.getRetriesDenied());
+    }
+
+    @Test
+    void histogramMetricsRecordAttemptsRetriesAndCacheLookups() {
+        HistogramMetrics metrics = new HistogramMetrics();
+        Sec4DevClient c = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/flaky/api/v1")
+                .retryDelay(0)
+                .ipCache(CacheConfig.builder().build())
+                .metrics(metrics)
+                .build();
+        c.getIp().check("198.51.100.7");
+        c.getIp().check("198.51.100.7");
+
+        EndpointMetrics m = metrics.snapshot("/ip/check");
+        assertEquals(1, m.getCalls());
+        assertEquals(0, m.getFailures());
+        assertEquals(1, m.getRetries());
+        assertEquals(1L, m.getStatusCodes().get(503));
+        assertEquals(1L, m.getStatusCodes().get(200));
+        assertEquals(1, m.getCacheHits());
+        assertEquals(1, m.getCacheMisses());
+        assertEquals(2 * "{\"ip\":\"198.51.100.7\"}".length(), m.getBytesOut());
+        assertTrue(m.getBytesIn() > 0);
+        assertEquals(2, m.getAttemptLatency().getCount());
+        assertEquals(1, m.getBackoff().getCount());
+        assertEquals(1, m.getEncode().getCount());
+        assertEquals(1, m.getDecode().getCount());
+        assertTrue(m.getCallLatency().getP99Micros() >= m.getAttemptLatency().getP50Micros());
+    }
+
+    @Test
+    void fanOutReturnsResultsInOrderAndCancelsOnFailure() {
+        Map<String, IPCheckResult> results = client.fanOut(
+                Arrays.asList("203.0.113.42", "198.51.100.7", "203.0.113.42"), client.getIp()::check);
+        assertEquals(Arrays.asList("203.0.113.42", "198.51.100.7"), new ArrayList<>(results.keySet()));
+        assertEquals("hosting", results.get("198.51.100.7").getClassification());
+
+        AtomicInteger interrupted = new AtomicInteger();
+        long start = System.nanoTime();
+        ValidationException e = assertThrows(ValidationException.class, () -> client.fanOut(
+                Arrays.asList("slow-1", "bad", "slow-2"), input -> {
+                    if (input.equals("bad")) throw new ValidationException("bad input", 422, null);
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException ie) {
+                        interrupted.incrementAndGet();
+                    }
+                    return input;
+                }));
+        assertEquals("bad input", e.getMessage());
+        // Siblings either never started or were interrupted; none ran to completion.
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(interrupted.get() <= 2);
+
+        Sec4DevException timeout = assertThrows(Sec4DevException.class, () -> client.fanOut(
+                Arrays.asList("a", "b"), input -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return input;
+                }, 100, TimeUnit.MILLISECONDS));
+        assertTrue(timeout.getMessage().contains("100ms"), timeout.getMessage());
+    }
+
+    @Test
+    void clientsShareTransportAndWarmUp() throws Exception {
+        Sec4DevTransport transport = Sec4DevTransport.builder()
+                .version(java.net.http.HttpClient.Version.HTTP_1_1)
+                .connections(2)
+                .build();
+        Sec4DevClient a = Sec4DevClient.builder()
+                .apiKey("sec4_tenant_a")
+                .baseUrl("http://localhost:" + port + "/api/v1")
+                .transport(transport)
+                .build();
+        Sec4DevClient b = Sec4DevClient.builder()
+                .apiKey("sec4_tenant_b")
+                .baseUrl("http://localhost:" + port + "/api/v1")
+                .transport(transport)
+                .build();
+        a.warmUp();
+        assertEquals("hosting", a.getIp().check("203.0.113.42").getClassification());
+        assertTrue(b.getEmail().isDisposable("user@tempmail.com"));
+        assertEquals(2, transport.getConnections());
+
+        int closedPort;
+        try (java.net.ServerSocket socket = new java.net.ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        Sec4DevClient unreachable = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + closedPort + "/api/v1")
+                .build();
+        assertThrows(Sec4DevException.class, unreachable::warmUp);
+        assertThrows(IllegalArgumentException.class, () -> Sec4DevClient.builder()
+                .apiKey("sec4_test_key").connections(0).build());
+    }
+
+    @Test
+    void ipSnapshotAnswersLongestPrefixAndFallsBackToApi() throws Exception {
+        String lines = "{\"cidr\":\"203.0.113.0/24\",\"classification\":\"hosting\",\"network\":{\"asn\":16509}}\n"
+                + "{\"cidr\":\"203.0.113.128/25\",\"classification\":\"vpn\"}\n"
+                + "\n"
+                + "{\"cidr\":\"2001:db8::/32\",\"classification\":\"residential\"}\n"
+                + "{\"cidr\":\"2001:db8:1::/48\",\"classification\":\"mobile\"}\n";
+        IpSnapshot snapshot = IpSnapshot.load(
+                new java.io.ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)), java.time.Instant.now());
+        assertEquals(4, snapshot.size());
+        assertEquals("hosting", snapshot.lookup("203.0.113.5").getClassification());
+        assertEquals(16509, snapshot.lookup("203.0.113.5").getNetwork().getAsn());
+        assertEquals("vpn", snapshot.lookup("203.0.113.200").getClassification());
+        assertEquals("mobile", snapshot.lookup("2001:db8:1::5").getClassification());
+        assertEquals("residential", snapshot.lookup("2001:db8:2::1").getClassification());
+        assertNull(snapshot.lookup("198.51.100.7"));
+
+        Sec4DevClient c = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/api/v1")
+                .ipSnapshot(snapshot, 1, TimeUnit.DAYS)
+                .build();
+        IPCheckResult local = c.getIp().check("203.0.113.200");
+        assertEquals("203.0.113.200", local.getIp());
+        assertEquals("vpn", local.getClassification());
+        assertEquals(0, ipCalls.get());
+        c.getIp().check("198.51.100.7");
+        assertEquals(1, ipCalls.get());
+        c.getIp().updateSnapshot(IpSnapshot.load(
+                new java.io.ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)), java.time.Instant.EPOCH));
+        assertEquals("hosting", c.getIp().check("203.0.113.200").getClassification());
+        assertEquals(2, ipCalls.get());
+        assertEquals(1, c.getIp().getSnapshotHits());
+
+        assertThrows(ValidationException.class, () -> IpSnapshot.load(new java.io.ByteArrayInputStream(
+                "{\"cidr\":\"10.0.0.0/33\"}".getBytes(StandardCharsets.UTF_8)), java.time.Instant.now()));
+    }
+
+    @Test
+    void diskCacheSurvivesRestartAndExpires(@TempDir java.nio.file.Path dir) throws Exception {
+        DiskCacheConfig ipDisk = DiskCacheConfig.builder(dir.resolve("ip.cache")).maxEntries(64).build();
+        DiskCacheConfig emailDisk = DiskCacheConfig.builder(dir.resolve("email.cache"))
+                .ttl(50, TimeUnit.MILLISECONDS).build();
+        Sec4DevClient first = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/api/v1")
+                .ipDiskCache(ipDisk)
+                .emailDiskCache(emailDisk)
+                .build();
+        IPCheckResult fetched = first.getIp().check("203.0.113.42");
+        first.getEmail().check("user@TempMail.com");
+        assertEquals(1, ipCalls.get());
+
+        // A second client on the same files, as after a restart, answers without the API.
+        Sec4DevClient second = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/api/v1")
+                .ipCache(CacheConfig.builder().build())
+                .ipDiskCache(ipDisk)
+                .emailDiskCache(emailDisk)
+                .build();
+        assertEquals(fetched, second.getIp().check("203.0.113.42"));
+        assertEquals(fetched, second.getIp().check("203.0.113.42"));
+        assertEquals(1, ipCalls.get());
+        assertEquals(new CacheStats(1, 0, 0, 1), second.getIp().getDiskCacheStats());
+        EmailCheckResult email = second.getEmail().check("user@tempmail.com");
+        assertEquals("user@tempmail.com", email.getEmail());
+        assertTrue(email.isDisposable());
+        assertEquals(1, emailCalls.get());
+
+        Thread.sleep(60);
+        second.getEmail().check("user@tempmail.com");
+        assertEquals(2, emailCalls.get());
+        assertThrows(IllegalArgumentException.class,
+                () -> DiskCacheConfig.builder(dir.resolve("x")).maxEntries(0).build());
+    }
+
+    @Test
+    void ipCacheReturnsFetchedResultUnchanged() {
+        Sec4DevClient c = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/api/v1")
+                .ipCache(CacheConfig.builder().build())
+                .build();
+        IPCheckResult fetched = c.getIp().check("203.0.113.42");
+        assertEquals(fetched, c.getIp().check("203.0.113.42"));
+        assertEquals(1, ipCalls.get());
+    }
+
+    @Test
+    void enrichmentPipelineStreamsNdjsonAndCsv() throws Exception {
+        String ndjson = "{\"ip\":\"203.0.113.42\",\"n\":1}\n"
+                + "{\"ip\":\" 203.0.113.42 \",\"n\":2}\r\n"
+                + "\n"
+                + "{\"n\":3}\n"
+                + "not json\n"
+                + "{\"ip\":\"bad\"}";
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        List<com.sec4dev.models.EnrichmentProgress> reports = new CopyOnWriteArrayList<>();
+        com.sec4dev.models.EnrichmentProgress done = EnrichmentPipeline.builder(client.getIp())
+                .concurrency(2)
+                .maxPendingRecords(2)
+                .onProgress(2, reports::add)
+                .build()
+                .run(new java.io.ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("{\"ip\":\"203.0.113.42\",\"n\":1,\"sec4dev\":{\"ip\":\"203.0.113.42\","
+                + "\"classification\":\"hosting\""), lines[0]);
+        assertTrue(lines[1].contains("\"n\":2,\"sec4dev\":{"), lines[1]);
+        assertTrue(lines[2].startsWith("{\"n\":3,\"sec4dev_error\":"), lines[2]);
+        assertEquals("not json", lines[3]);
+        assertTrue(lines[4].contains("\"sec4dev_error\":\"Invalid IP"), lines[4]);
+        assertEquals(1, ipCalls.get());
+        assertEquals(5, done.getRecordsRead());
+        assertEquals(5, done.getRecordsWritten());
+        assertEquals(1, done.getLookups());
+        assertEquals(1, done.getDeduplicated());
+        assertEquals(3, done.getFailed());
+        assertEquals(2, reports.size());
+
+        String csv = "id,\"src_ip\",note\n"
+                + "1,203.0.113.42,\"multi\nline\"\n"
+                + "2,,x\n";
+        out.reset();
+        done = EnrichmentPipeline.builder(client.getIp())
+                .format(RecordFormat.CSV)
+                .field("src_ip")
+                .ordered(false)
+                .build()
+                .run(new java.io.ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), out);
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("id,\"src_ip\",note,sec4dev_classification,"), text);
+        assertTrue(text.contains("1,203.0.113.42,\"multi\nline\",hosting,0.95,16509,\"Amazon.com, Inc.\",AWS,US,,"
+                + "true,false,false,false,false,false,\n"), text);
+        assertTrue(text.contains("2,,x,,,,,,,,,,,,,,IP address is required\n"), text);
+        assertEquals(2, done.getRecordsWritten());
+
+        assertThrows(ValidationException.class, () -> EnrichmentPipeline.builder(client.getIp())
+                .format(RecordFormat.CSV).field("ip").build()
+                .run(new java.io.ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), out));
+
+        // A throwing progress listener fails the run instead of stalling the reader.
+        StringBuilder many = new StringBuilder();
+        for (int i = 0; i < 50; i++) many.append("{\"ip\":\"203.0.113.42\"}\n");
+        IllegalStateException listenerError = assertThrows(IllegalStateException.class, () ->
+                EnrichmentPipeline.builder(client.getIp())
+                        .maxPendingRecords(4)
+                        .onProgress(1, p -> { throw new IllegalStateException("listener failed"); })
+                        .build()
+                        .run(new java.io.ByteArrayInputStream(many.toString().getBytes(StandardCharsets.UTF_8)),
+                                new java.io.ByteArrayOutputStream()));
+        assertEquals("listener failed", listenerError.getMessage());
+    }
+
+    @Test
+    void processorBoundsUpstreamDemandAndPropagatesErrors() throws Exception {
+        List<String> inputs = Arrays.asList("203.0.113.1", "203.0.113.2", "203.0.113.3",
+                "203.0.113.4", "203.0.113.5", "203.0.113.6");
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        java.util.concurrent.Flow.Publisher<String> source = s -> s.onSubscribe(new java.util.concurrent.Flow.Subscription() {
+            private long requested;
+            private int next;
+
+            @Override
+            public synchronized void request(long n) {
+                requested += n;
+                maxOutstanding.accumulateAndGet((int) requested, Math::max);
+                while (requested > 0 && next < inputs.size()) {
+                    requested--;
+                    s.onNext(inputs.get(next++));
+                }
+                if (next == inputs.size()) s.onComplete();
+            }
+
+            @Override
+            public void cancel() {}
+        });
+        java.util.concurrent.Flow.Processor<String, IPCheckResult> processor = client.getIp().processor(2);
+        source.subscribe(processor);
+        List<IPCheckResult> received = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        processor.subscribe(new java.util.concurrent.Flow.Subscriber<IPCheckResult>() {
+            @Override
+            public void onSubscribe(java.util.concurrent.Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(IPCheckResult item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.get(10, TimeUnit.SECONDS);
+        assertEquals(6, received.size());
+        assertEquals(6, ipCalls.get());
+        assertTrue(maxOutstanding.get() <= 2, "outstanding " + maxOutstanding.get());
+
+        // Paced: the next input is pulled when the pacer frees a slot, so checks overlap.
+        RequestPacer pacer = new RequestPacer(RateLimitPolicy.QUEUE, 60_000);
+        pacer.update(new RateLimitInfo(1000, 1000, 1));
+        HttpClient pacedHttp = new HttpClient("http://localhost:" + port + "/api/v1", "sec4_test_key",
+                null, 0, 0, null, pacer);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CheckProcessor<String> paced = new CheckProcessor<>(in -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                running.decrementAndGet();
+                return in;
+            }, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+        }, pacedHttp, 4);
+        java.util.concurrent.SubmissionPublisher<String> pacedInputs = new java.util.concurrent.SubmissionPublisher<>();
+        pacedInputs.subscribe(paced);
+        List<String> pacedOut = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> pacedDone = new CompletableFuture<>();
+        paced.subscribe(new java.util.concurrent.Flow.Subscriber<String>() {
+            @Override
+            public void onSubscribe(java.util.concurrent.Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(String item) {
+                pacedOut.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                pacedDone.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                pacedDone.complete(null);
+            }
+        });
+        for (String in : inputs) pacedInputs.submit(in);
+        pacedInputs.close();
+        pacedDone.get(10, TimeUnit.SECONDS);
+        assertEquals(6, pacedOut.size());
+        assertTrue(maxRunning.get() > 1 && maxRunning.get() <= 4, "running " + maxRunning.get());
+
+        java.util.concurrent.SubmissionPublisher<String> emails = new java.util.concurrent.SubmissionPublisher<>();
+        java.util.concurrent.Flow.Processor<String, EmailCheckResult> emailProcessor = client.getEmail().processor();
+        emails.subscribe(emailProcessor);
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        emailProcessor.subscribe(new java.util.concurrent.Flow.Subscriber<EmailCheckResult>() {
+            @Override
+            public void onSubscribe(java.util.concurrent.Flow.Subscription subscription) {
+                subscription.request(10);
+            }
+
+            @Override
+            public void onNext(EmailCheckResult item) {}
+
+            @Override
+            public void onError(Throwable throwable) {
+                failed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                failed.complete(null);
+            }
+        });
+        emails.submit("user@tempmail.com");
+        emails.submit("not-an-email");
+        java.util.concurrent.ExecutionException e = assertThrows(java.util.concurrent.ExecutionException.class,
+                () -> failed.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(ValidationException.class, e.getCause());
+        emails.close();
+    }
+
+    @Test
+    void clientPoolBalancesByRemainingQuotaAndDrainsRateLimitedKeys() {
+        Sec4DevClientPool pool = Sec4DevClientPool.builder()
+                .apiKeys(Arrays.asList("sec4_drained", "sec4_a", "sec4_b"))
+                .client(b -> b.baseUrl("http://localhost:" + port + "/keys/api/v1").retries(0))
+                .build();
+        for (int i = 0; i < 6; i++) {
+            assertEquals("hosting", pool.checkIp("203.0.113." + i).getClassification());
+        }
+        assertEquals(1, keyCalls.get("sec4_drained").get());
+        assertEquals(3, keyCalls.get("sec4_a").get());
+        assertEquals(3, keyCalls.get("sec4_b").get());
+        assertEquals(2, pool.getAvailableKeyCount());
+        assertEquals(97, pool.getRateLimit("sec4_a").getRemaining());
+
+        BatchResult<IPCheckResult> batch = pool.checkAllIps(Arrays.asList("198.51.100.1", "198.51.100.2", "198.51.100.3"));
+        assertFalse(batch.hasErrors());
+        assertEquals(1, keyCalls.get("sec4_drained").get());
+
+        Sec4DevClientPool exhausted = Sec4DevClientPool.builder()
+                .apiKey("sec4_drained")
+                .client(b -> b.baseUrl("http://localhost:" + port + "/keys/api/v1").retries(3))
+                .build();
+        RateLimitException e = assertThrows(RateLimitException.class, () -> exhausted.checkIp("203.0.113.9"));
+        assertEquals(429, e.getStatusCode());
+        assertEquals(2, keyCalls.get("sec4_drained").get());
+        CompletionException async = assertThrows(CompletionException.class,
+                () -> exhausted.checkIpAsync("203.0.113.9").join());
+        assertInstanceOf(RateLimitException.class, async.getCause());
+        assertEquals(2, keyCalls.get("sec4_drained").get());
+
+        // Keys share one cache: a result fetched with one key is served on the others.
+        Sec4DevClientPool cached = Sec4DevClientPool.builder()
+                .apiKeys(Arrays.asList("sec4_c", "sec4_d"))
+                .client(b -> b.baseUrl("http://localhost:" + port + "/keys/api/v1").retries(0)
+                        .ipCache(CacheConfig.builder().build()))
+                .build();
+        for (int i = 0; i < 4; i++) cached.checkIp("203.0.113.77");
+        assertEquals(1, keyCalls.getOrDefault("sec4_c", new AtomicInteger()).get() + keyCalls.getOrDefault("sec4_d", new AtomicInteger()).get());
+        assertEquals(3, cached.getClient("sec4_c").getIp().getCacheStats().getHits());
+    }
+
+    @Test
+    void concurrencyLimitRejectsCallsOverTheLimit() {
+        Sec4DevClient limited = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/slow/api/v1")
+                .concurrencyLimit(ConcurrencyLimitConfig.builder()
+                        .initialLimit(2).maxWait(0, TimeUnit.MILLISECONDS).build())
+                .build();
+        List<CompletableFuture<IPCheckResult>> calls = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) calls.add(limited.getIp().checkAsync("192.0.2." + i));
+        CompletionException over = assertThrows(CompletionException.class, () -> calls.get(2).join());
+        assertInstanceOf(ConcurrencyLimitException.class, over.getCause());
+        assertEquals("vpn", calls.get(0).join().getClassification());
+        assertEquals("vpn", calls.get(1).join().getClassification());
+        assertEquals(1, limited.getConcurrencyLimitRejections());
+        assertEquals(2, slowCalls.get());
+    }
+
+    @Test
+    void checkAllReportsResultsAndFailuresPerInput() {
+        BatchResult<IPCheckResult> batch = client.getIp().checkAll(
+                Arrays.asList("203.0.113.42", "not-an-ip", "203.0.113.42"));
+        assertEquals(2, batch.size());
+        assertEquals("hosting", batch.get("203.0.113.42").getClassification());
+        assertInstanceOf(ValidationException.class, batch.getError("not-an-ip"));
+        assertTrue(batch.hasErrors());
+    }
+
+    @Test
+    void errorBodyIsExposedWithDetailMessage() {
+        Sec4DevClient c = Sec4DevClient.builder()
+                .apiKey("sec4_test_key")
+                .baseUrl("http://localhost:" + port + "/errors/api/v1")
+                .retries(0)
+                .build();
+        PaymentRequiredException e = assertThrows(PaymentRequiredException.class,
+                () -> c.getIp().check("203.0.113.42"));
+        assertEquals("Quota exceeded", e.getMessage());
+        assertEquals(402, e.getStatusCode());
+        assertEquals("free", ((Map<?, ?>) e.getResponseBody()).get("plan"));
+    }
 }
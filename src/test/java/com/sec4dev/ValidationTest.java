@@ -0,0 +1,112 @@
+package com.sec4dev;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationTest {
+
+    @Test
+    void normalizeIpKeepsCanonicalIpv4() {
+        assertEquals("203.0.113.42", Validation.normalizeIp("203.0.113.42"));
+        assertEquals("255.255.255.255", Validation.normalizeIp(" 255.255.255.255 "));
+        assertEquals("0.0.0.0", Validation.normalizeIp("0.0.0.0"));
+    }
+
+    @Test
+    void normalizeIpCompactsIpv6() {
+        assertEquals("2001:db8::8a2e:370:7334", Validation.normalizeIp("2001:0DB8:0000:0000:0000:8A2E:0370:7334"));
+        assertEquals("::1", Validation.normalizeIp("0:0:0:0:0:0:0:1"));
+        assertEquals("::", Validation.normalizeIp("::"));
+        assertEquals("2001:db8:0:1:1:1:1:1", Validation.normalizeIp("2001:db8::1:1:1:1:1"));
+        assertEquals("2001:db8::1:0:0:1", Validation.normalizeIp("2001:db8:0:0:1:0:0:1"));
+        assertEquals("fe80::1%eth0", Validation.normalizeIp("[FE80:0::1%eth0]"));
+        assertEquals("::102:304", Validation.normalizeIp("::1.2.3.4"));
+    }
+
+    @Test
+    void normalizeIpCollapsesIpv4Mapped() {
+        assertEquals("192.0.2.1", Validation.normalizeIp("::ffff:192.0.2.1"));
+        assertEquals("192.0.2.1", Validation.normalizeIp("::FFFF:c000:0201"));
+    }
+
+    @Test
+    void normalizeIpRejectsNonLiterals() {
+        String[] invalid = {
+                "localhost", "example.com", "1.2.3", "1.2.3.4.5", "256.1.1.1", "01.2.3.4", "1.2.3.",
+                ".1.2.3", "1..2.3", "1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8:9", "1::2::3", ":1::", "1::2:",
+                "12345::", "g::1", "::ffff:1.2.3", "1:2:3:4:5:6:7:1.2.3.4", "fe80::1%", "[1.2.3.4]",
+                "1.2.3.4%eth0", "١.2.3.4"
+        };
+        for (String s : invalid) {
+            assertThrows(ValidationException.class, () -> Validation.validateIp(s), s);
+        }
+    }
+
+    @Test
+    void parseAgreesWithInetAddressOnLiterals() throws Exception {
+        String[] literals = {"203.0.113.42", "2001:db8::8a2e:370:7334", "::1", "1::", "1:2:3:4:5:6:7::",
+                "::ffff:10.0.0.1", "fe80::1:2%eth0", "a:b:c:d:e:f:0:1"};
+        for (String s : literals) {
+            long[] addr = new long[2];
+            assertNotEquals(0, IpLiteral.parse(s, addr), s);
+            byte[] expected = InetAddress.getByName(s).getAddress();
+            byte[] actual = new byte[16];
+            for (int i = 0; i < 8; i++) {
+                actual[i] = (byte) (addr[0] >>> (56 - 8 * i));
+                actual[i + 8] = (byte) (addr[1] >>> (56 - 8 * i));
+            }
+            if (expected.length == 4) {
+                assertArrayEquals(expected, Arrays.copyOfRange(actual, 12, 16), s);
+                assertEquals(0xffffL, addr[1] >>> 32, s);
+            } else {
+                assertArrayEquals(expected, actual, s);
+            }
+        }
+    }
+
+    @Test
+    void validateEmailMatchesPreviousRegex() {
+        Pattern previous = Pattern.compile("^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$");
+        String[] inputs = {
+                "user@tempmail.com", " user@tempmail.com\t", "a@b.c", "a@.bc", "a@bc.", "a@b..c", "@b.c", "a@b",
+                "a@@b.c", "a b@c.d", "a@b.c@d.e", "a@b\u000Bc.d", "a\u0001b@c.d", "user@b\u00fccher.de", "not-an-email"
+        };
+        for (String in : inputs) {
+            boolean expected = previous.matcher(in.trim()).matches();
+            boolean actual;
+            try {
+                Validation.validateEmail(in);
+                actual = true;
+            } catch (ValidationException e) {
+                actual = false;
+            }
+            assertEquals(expected, actual, in);
+        }
+    }
+
+    @Test
+    void parseEmailNormalizesDomain() {
+        EmailAddress a = Validation.parseEmail("  John.Doe@MailInator.COM ");
+        assertEquals("John.Doe@MailInator.COM", a.getAddress());
+        assertEquals("John.Doe", a.getLocalPart());
+        assertEquals("mailinator.com", a.getDomain());
+        assertEquals("John.Doe@mailinator.com", a.getNormalized());
+
+        assertEquals("xn--bcher-kva.de", Validation.parseEmail("user@B\u00fccher.de").getDomain());
+    }
+
+    @Test
+    void emailErrorsKeepTheirMessages() {
+        assertEquals("Email is required", assertThrows(ValidationException.class,
+                () -> Validation.validateEmail(null)).getMessage());
+        assertEquals("Email cannot be empty", assertThrows(ValidationException.class,
+                () -> Validation.validateEmail("   ")).getMessage());
+        assertEquals("Invalid email format", assertThrows(ValidationException.class,
+                () -> Validation.parseEmail("a@b")).getMessage());
+    }
+}